@@ -0,0 +1,97 @@
+package org.redis.objects.benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.redis.objects.serializer.Serializer;
+import org.redis.objects.serializer.compression.CompressingSerializer;
+import org.redis.objects.serializer.compression.DeflateCompressor;
+import org.redis.objects.serializer.compression.Lz4Compressor;
+import org.redis.objects.serializer.kryo.KryoSerializer;
+
+/**
+ * CompressingSerializer benchmarks per codec (no Redis server required). The
+ * size of the serialized value is reported in the serializedBytes column.
+ *
+ * @author Mathieu MAST
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final String[] WORDS = {"redis", "objects", "map", "set", "value", "key", "pipeline", "sync", "serializer", "kryo", "compression", "benchmark"};
+
+    @Param({"none", "deflate", "lz4"})
+    private String codec;
+
+    @Param({"1024", "65536"})
+    private int length;
+
+    private Serializer serializer;
+
+    private String value;
+
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        switch (codec) {
+            case "deflate":
+                serializer = new CompressingSerializer(new KryoSerializer(), new DeflateCompressor());
+                break;
+            case "lz4":
+                serializer = new CompressingSerializer(new KryoSerializer(), new Lz4Compressor());
+                break;
+            default:
+                serializer = new KryoSerializer();
+        }
+        // text-like value: words and random numbers
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < length) {
+            sb.append(WORDS[random.nextInt(WORDS.length)]).append(' ').append(random.nextInt(10000)).append(' ');
+        }
+        value = sb.substring(0, length);
+        bytes = serializer.toBytes(value);
+    }
+
+    @Benchmark
+    public byte[] toBytes(Size size) throws IOException {
+        byte[] res = serializer.toBytes(value);
+        size.serializedBytes = res.length;
+        return res;
+    }
+
+    @Benchmark
+    public Object toObject(Size size) throws IOException, ClassNotFoundException {
+        size.serializedBytes = bytes.length;
+        return serializer.toObject(bytes);
+    }
+
+    /**
+     * Size of the serialized value, reported with the results.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+
+        public long serializedBytes;
+    }
+}
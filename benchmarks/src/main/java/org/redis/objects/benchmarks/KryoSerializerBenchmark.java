@@ -0,0 +1,102 @@
+package org.redis.objects.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.redis.objects.serializer.kryo.KryoRegistry;
+import org.redis.objects.serializer.kryo.KryoSerializer;
+
+/**
+ * KryoSerializer benchmarks (no Redis server required).
+ *
+ * @author Mathieu MAST
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KryoSerializerBenchmark {
+
+    public static class Dto {
+
+        private long id;
+
+        private String name;
+
+        private double amount;
+
+        public Dto() {
+        }
+
+        public Dto(long id, String name, double amount) {
+            this.id = id;
+            this.name = name;
+            this.amount = amount;
+        }
+    }
+
+    private final KryoSerializer serializer = new KryoSerializer();
+
+    private final KryoSerializer registeredSerializer = new KryoSerializer(new KryoRegistry().register(Dto.class, 16));
+
+    private String string;
+
+    private Dto dto;
+
+    private byte[] stringBytes;
+
+    private byte[] dtoBytes;
+
+    private byte[] registeredDtoBytes;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        string = "3f2c5a1e-8b7d-4c6e-9f0a-1b2c3d4e5f60";
+        dto = new Dto(42L, string, 12.5);
+        stringBytes = serializer.toBytes(string);
+        dtoBytes = serializer.toBytes(dto);
+        registeredDtoBytes = registeredSerializer.toBytes(dto);
+    }
+
+    @Benchmark
+    public byte[] stringToBytes() throws IOException {
+        return serializer.toBytes(string);
+    }
+
+    @Benchmark
+    public Object stringToObject() throws IOException, ClassNotFoundException {
+        return serializer.toObject(stringBytes);
+    }
+
+    @Benchmark
+    public byte[] dtoToBytes() throws IOException {
+        return serializer.toBytes(dto);
+    }
+
+    @Benchmark
+    public Object dtoToObject() throws IOException, ClassNotFoundException {
+        return serializer.toObject(dtoBytes);
+    }
+
+    @Benchmark
+    public byte[] registeredDtoToBytes() throws IOException {
+        return registeredSerializer.toBytes(dto);
+    }
+
+    @Benchmark
+    public Object registeredDtoToObject() throws IOException, ClassNotFoundException {
+        return registeredSerializer.toObject(registeredDtoBytes);
+    }
+}
@@ -0,0 +1,101 @@
+package org.redis.objects.benchmarks;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.clients.jedis.JedisPool;
+import redis.embedded.RedisServer;
+
+/**
+ * Base of Redis benchmarks.
+ *
+ * By default benchmarks run against the Redis server listening on
+ * localhost:6379. Use -Dredis.host and -Dredis.port to target another server,
+ * or -Dredis.embedded=true to start an in-process Redis server for the trial.
+ *
+ * @author Mathieu MAST
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class RedisBenchmark {
+
+    /**
+     * Number of distinct keys used by benchmarks.
+     */
+    protected static final int KEYS = 1024;
+
+    protected JedisPool jedisPool;
+
+    protected String[] keys;
+
+    private RedisServer redisServer;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        String host = System.getProperty("redis.host", "localhost");
+        int port = Integer.getInteger("redis.port", 6379);
+        if (Boolean.getBoolean("redis.embedded")) {
+            host = "localhost";
+            port = Integer.getInteger("redis.port", 6380);
+            redisServer = new RedisServer(port);
+            redisServer.start();
+        }
+        jedisPool = new JedisPool(host, port);
+
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = UUID.randomUUID().toString();
+        }
+
+        setup();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        tearDown();
+
+        jedisPool.destroy();
+        if (null != redisServer) {
+            redisServer.stop();
+        }
+    }
+
+    /**
+     * Create and fill benchmarked objects.
+     */
+    protected abstract void setup();
+
+    /**
+     * Clear benchmarked objects.
+     */
+    protected abstract void tearDown();
+
+    /**
+     * Key counter, one per benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Counter {
+
+        private int i = 0;
+
+        public int next() {
+            i = (i + 1) % KEYS;
+            return i;
+        }
+    }
+}
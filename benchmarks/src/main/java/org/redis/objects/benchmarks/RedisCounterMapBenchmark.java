@@ -0,0 +1,43 @@
+package org.redis.objects.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.redis.objects.RedisCounterMap;
+import org.redis.objects.serializer.StringSerializer;
+
+/**
+ * RedisCounterMap benchmarks.
+ *
+ * @author Mathieu MAST
+ */
+public class RedisCounterMapBenchmark extends RedisBenchmark {
+
+    private RedisCounterMap<String> counters;
+
+    @Override
+    protected void setup() {
+        counters = RedisCounterMap.<String>builder().jedisPool(jedisPool).name("benchmarkCounterMap").keySerializer(new StringSerializer()).build();
+        counters.clear();
+        counters.sync();
+    }
+
+    @Override
+    protected void tearDown() {
+        counters.clear();
+        counters.sync();
+    }
+
+    @Benchmark
+    public void increment(Counter counter) {
+        counters.increment(keys[counter.next()], 1);
+    }
+
+    @Benchmark
+    public long addAndGet(Counter counter) {
+        return counters.addAndGet(keys[counter.next()], 1);
+    }
+
+    @Benchmark
+    public long get(Counter counter) {
+        return counters.get(keys[counter.next()]);
+    }
+}
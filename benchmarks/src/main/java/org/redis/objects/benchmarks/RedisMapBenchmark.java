@@ -0,0 +1,175 @@
+package org.redis.objects.benchmarks;
+
+import java.util.Arrays;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+import org.redis.objects.AdaptiveFlushPolicy;
+import org.redis.objects.RedisMap;
+import org.redis.objects.metrics.InMemoryMetrics;
+import org.redis.objects.serializer.StringSerializer;
+
+/**
+ * RedisMap benchmarks.
+ *
+ * @author Mathieu MAST
+ */
+public class RedisMapBenchmark extends RedisBenchmark {
+
+    /**
+     * Number of keys updated by hot keys benchmarks.
+     */
+    private static final int HOT_KEYS = 16;
+
+    private RedisMap<String, String> map;
+
+    private RedisMap<String, String> mapSyncImmediate;
+
+    private RedisMap<String, String> mapPipelines;
+
+    private RedisMap<String, String> mapStringCodec;
+
+    private RedisMap<String, String> mapWriteBehind;
+
+    private RedisMap<String, String> mapMetrics;
+
+    private RedisMap<String, String> mapAdaptive;
+
+    @Override
+    protected void setup() {
+        map = RedisMap.<String, String>builder().jedisPool(jedisPool).name("benchmarkMap").build();
+        mapSyncImmediate = RedisMap.<String, String>builder().jedisPool(jedisPool).name("benchmarkMapSyncImmediate").syncImmediate(true).build();
+        map.clear();
+        mapPipelines = RedisMap.<String, String>builder().jedisPool(jedisPool).name("benchmarkMapPipelines").pipelines(4).build();
+        mapStringCodec = RedisMap.<String, String>builder().jedisPool(jedisPool).name("benchmarkMapStringCodec").serializer(new StringSerializer()).build();
+        mapWriteBehind = RedisMap.<String, String>builder().jedisPool(jedisPool).name("benchmarkMapWriteBehind").writeBehind(true).build();
+        mapSyncImmediate.clear();
+        mapPipelines.clear();
+        mapStringCodec.clear();
+        mapWriteBehind.clear();
+        mapMetrics = RedisMap.<String, String>builder().jedisPool(jedisPool).name("benchmarkMapMetrics").metrics(new InMemoryMetrics()).build();
+        mapMetrics.clear();
+        mapAdaptive = RedisMap.<String, String>builder().jedisPool(jedisPool).name("benchmarkMapAdaptive").flushPolicy(new AdaptiveFlushPolicy()).build();
+        mapAdaptive.clear();
+        for (String key : keys) {
+            map.put(key, key);
+            mapStringCodec.put(key, key);
+        }
+        map.sync();
+        mapStringCodec.sync();
+    }
+
+    @Override
+    protected void tearDown() {
+        map.clear();
+        mapSyncImmediate.clear();
+        mapPipelines.clear();
+        mapStringCodec.clear();
+        mapWriteBehind.clear();
+        mapMetrics.clear();
+        mapAdaptive.clear();
+        map.sync();
+        mapSyncImmediate.sync();
+        mapPipelines.sync();
+        mapStringCodec.sync();
+        mapWriteBehind.sync();
+        mapMetrics.sync();
+        mapAdaptive.sync();
+    }
+
+    @Benchmark
+    public Object put(Counter counter) {
+        String key = keys[counter.next()];
+        return map.put(key, key);
+    }
+
+    @Benchmark
+    public Object putSyncImmediate(Counter counter) {
+        String key = keys[counter.next()];
+        return mapSyncImmediate.put(key, key);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object putConcurrent(Counter counter) {
+        String key = keys[counter.next()];
+        return map.put(key, key);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object putConcurrentPipelines(Counter counter) {
+        String key = keys[counter.next()];
+        return mapPipelines.put(key, key);
+    }
+
+    @Benchmark
+    public Object putWriteBehind(Counter counter) {
+        String key = keys[counter.next()];
+        return mapWriteBehind.put(key, key);
+    }
+
+    @Benchmark
+    public Object putAdaptive(Counter counter) {
+        String key = keys[counter.next()];
+        return mapAdaptive.put(key, key);
+    }
+
+    @Benchmark
+    public Object putMetrics(Counter counter) {
+        String key = keys[counter.next()];
+        return mapMetrics.put(key, key);
+    }
+
+    @Benchmark
+    public Object putHotKeys(Counter counter) {
+        String key = keys[counter.next() % HOT_KEYS];
+        return map.put(key, key);
+    }
+
+    @Benchmark
+    public Object putHotKeysWriteBehind(Counter counter) {
+        String key = keys[counter.next() % HOT_KEYS];
+        return mapWriteBehind.put(key, key);
+    }
+
+    @Benchmark
+    public String get(Counter counter) {
+        return map.get(keys[counter.next()]);
+    }
+
+    @Benchmark
+    public Object putStringCodec(Counter counter) {
+        String key = keys[counter.next()];
+        return mapStringCodec.put(key, key);
+    }
+
+    @Benchmark
+    public String getStringCodec(Counter counter) {
+        return mapStringCodec.get(keys[counter.next()]);
+    }
+
+    @Benchmark
+    public Map<String, String> getAll() {
+        return map.getAll(Arrays.asList(keys));
+    }
+
+    @Benchmark
+    public boolean containsKey(Counter counter) {
+        return map.containsKey(keys[counter.next()]);
+    }
+
+    @Benchmark
+    public int size() {
+        return map.size();
+    }
+
+    @Benchmark
+    public void iterate(Blackhole bh) {
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            bh.consume(entry.getKey());
+            bh.consume(entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.redis.objects.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Threads;
+import org.redis.objects.RedisMap;
+import org.redis.objects.RedisObjects;
+
+/**
+ * RedisObjects benchmarks: objects created per request.
+ *
+ * @author Mathieu MAST
+ */
+public class RedisObjectsBenchmark extends RedisBenchmark {
+
+    private static final int MAPS = 16;
+
+    private RedisObjects objects;
+
+    @Override
+    protected void setup() {
+        objects = new RedisObjects(jedisPool);
+        for (int i = 0; i < MAPS; i++) {
+            objects.map("benchmarkObjects" + i).clear();
+        }
+        objects.sync();
+    }
+
+    @Override
+    protected void tearDown() {
+        for (int i = 0; i < MAPS; i++) {
+            objects.map("benchmarkObjects" + i).clear();
+        }
+        // pool is destroyed by the benchmark
+        objects.sync();
+    }
+
+    @Benchmark
+    public Object mapPerRequest(Counter counter) {
+        int i = counter.next();
+        RedisMap<String, String> map = objects.map("benchmarkObjects" + i % MAPS);
+        return map.put(keys[i], keys[i]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object mapPerRequestConcurrent(Counter counter) {
+        int i = counter.next();
+        RedisMap<String, String> map = objects.map("benchmarkObjects" + i % MAPS);
+        return map.put(keys[i], keys[i]);
+    }
+}
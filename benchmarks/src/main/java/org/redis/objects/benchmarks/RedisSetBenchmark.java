@@ -0,0 +1,53 @@
+package org.redis.objects.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+import org.redis.objects.RedisSet;
+
+/**
+ * RedisSet benchmarks.
+ *
+ * @author Mathieu MAST
+ */
+public class RedisSetBenchmark extends RedisBenchmark {
+
+    private RedisSet<String> set;
+
+    @Override
+    protected void setup() {
+        set = RedisSet.<String>builder().jedisPool(jedisPool).name("benchmarkSet").build();
+        set.clear();
+        for (String key : keys) {
+            set.add(key);
+        }
+        set.sync();
+    }
+
+    @Override
+    protected void tearDown() {
+        set.clear();
+        set.sync();
+    }
+
+    @Benchmark
+    public boolean add(Counter counter) {
+        return set.add(keys[counter.next()]);
+    }
+
+    @Benchmark
+    public boolean contains(Counter counter) {
+        return set.contains(keys[counter.next()]);
+    }
+
+    @Benchmark
+    public int size() {
+        return set.size();
+    }
+
+    @Benchmark
+    public void iterate(Blackhole bh) {
+        for (String value : set) {
+            bh.consume(value);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.redis.objects.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+import org.redis.objects.RedisSortedSet;
+import org.redis.objects.Scoreable;
+
+/**
+ * RedisSortedSet benchmarks.
+ *
+ * @author Mathieu MAST
+ */
+public class RedisSortedSetBenchmark extends RedisBenchmark {
+
+    public static class ScoredString implements Scoreable {
+
+        private String str;
+
+        private double score;
+
+        public ScoredString() {
+        }
+
+        public ScoredString(String str, double score) {
+            this.str = str;
+            this.score = score;
+        }
+
+        @Override
+        public double score() {
+            return score;
+        }
+    }
+
+    private RedisSortedSet<ScoredString> set;
+
+    private ScoredString[] values;
+
+    @Override
+    protected void setup() {
+        set = RedisSortedSet.<ScoredString>builder().jedisPool(jedisPool).name("benchmarkSortedSet").build();
+        set.clear();
+        values = new ScoredString[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            values[i] = new ScoredString(keys[i], i);
+            set.add(values[i]);
+        }
+        set.sync();
+    }
+
+    @Override
+    protected void tearDown() {
+        set.clear();
+        set.sync();
+    }
+
+    @Benchmark
+    public boolean add(Counter counter) {
+        return set.add(values[counter.next()]);
+    }
+
+    @Benchmark
+    public boolean contains(Counter counter) {
+        return set.contains(values[counter.next()]);
+    }
+
+    @Benchmark
+    public int size() {
+        return set.size();
+    }
+
+    @Benchmark
+    public void iterate(Blackhole bh) {
+        for (ScoredString value : set) {
+            bh.consume(value);
+        }
+    }
+}
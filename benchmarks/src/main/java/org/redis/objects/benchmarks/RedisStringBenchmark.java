@@ -0,0 +1,86 @@
+package org.redis.objects.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.redis.objects.RedisString;
+
+/**
+ * RedisString benchmarks.
+ *
+ * @author Mathieu MAST
+ */
+public class RedisStringBenchmark extends RedisBenchmark {
+
+    @Param({"1024", "1048576"})
+    private int length;
+
+    private RedisString str;
+
+    private RedisString appended;
+
+    @Override
+    protected void setup() {
+        str = RedisString.builder().jedisPool(jedisPool).name("benchmarkString").build();
+        appended = RedisString.builder().jedisPool(jedisPool).name("benchmarkStringAppend").build();
+        str.clear();
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        str.append(sb.toString());
+        str.sync();
+    }
+
+    @Setup(Level.Iteration)
+    public void clearAppended() {
+        appended.clear();
+        appended.sync();
+    }
+
+    @Override
+    protected void tearDown() {
+        str.clear();
+        appended.clear();
+        str.sync();
+        appended.sync();
+    }
+
+    @Benchmark
+    public RedisString append() {
+        return appended.append("a");
+    }
+
+    @Benchmark
+    public int length() {
+        return str.length();
+    }
+
+    @Benchmark
+    public long byteLength() {
+        return str.byteLength();
+    }
+
+    @Benchmark
+    public byte[] getRange(Counter counter) {
+        int start = counter.next() % (length - 16);
+        return str.getRange(start, start + 15);
+    }
+
+    @Benchmark
+    public char charAt(Counter counter) {
+        return str.charAt(counter.next());
+    }
+
+    @Benchmark
+    public CharSequence subSequence(Counter counter) {
+        int start = counter.next() % (length - 16);
+        return str.subSequence(start, start + 16);
+    }
+
+    @Benchmark
+    public String get() {
+        return str.toString();
+    }
+}
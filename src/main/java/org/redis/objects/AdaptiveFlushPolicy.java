@@ -0,0 +1,88 @@
+package org.redis.objects;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flush policy adapting the number of commands per sync to a target sync
+ * latency: the limit doubles while full batches are synced in less than half
+ * the target, and shrinks by a quarter when a sync exceeds the target. Under
+ * load, batches grow up to the latency budget; with light traffic, pipelines
+ * are synced after the delay.
+ *
+ * @author Mathieu MAST
+ */
+public class AdaptiveFlushPolicy implements FlushPolicy {
+
+    /**
+     * Default target sync latency (ms).
+     */
+    public static final long DEFAULT_TARGET_LATENCY = 2;
+
+    private final long targetNanos;
+
+    private final int minCommands;
+
+    private final int maxCommands;
+
+    private final long maxBytes;
+
+    private final long delay;
+
+    private volatile int limit;
+
+    public AdaptiveFlushPolicy() {
+        this(DEFAULT_TARGET_LATENCY, 10, 10000, 0, ThresholdFlushPolicy.DEFAULT_DELAY);
+    }
+
+    /**
+     * Create adaptive flush policy.
+     *
+     * @param targetLatency target sync latency (ms)
+     * @param minCommands min limit of pending commands
+     * @param maxCommands max limit of pending commands
+     * @param maxBytes max pending bytes (0 for no limit)
+     * @param delay delay before sync (ms)
+     */
+    public AdaptiveFlushPolicy(long targetLatency, int minCommands, int maxCommands, long maxBytes, long delay) {
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(targetLatency);
+        this.minCommands = minCommands;
+        this.maxCommands = maxCommands;
+        this.maxBytes = maxBytes;
+        this.delay = delay;
+        this.limit = minCommands;
+    }
+
+    /**
+     * Current limit of pending commands.
+     *
+     * @return limit
+     */
+    public int limit() {
+        return limit;
+    }
+
+    @Override
+    public boolean sync(int commands, long bytes) {
+        return commands >= limit || (maxBytes > 0 && bytes >= maxBytes);
+    }
+
+    @Override
+    public long delay() {
+        return delay;
+    }
+
+    @Override
+    public boolean countsBytes() {
+        return maxBytes > 0;
+    }
+
+    @Override
+    public synchronized void synced(int commands, long bytes, long nanos) {
+        if (nanos > targetNanos) {
+            limit = Math.max(minCommands, Math.min(limit, commands) * 3 / 4);
+        } else if (commands >= limit && nanos < targetNanos / 2) {
+            // batch was full: there is load to absorb
+            limit = (int) Math.min(maxCommands, 2L * limit);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.redis.objects;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.redis.objects.exceptions.RedisobjectsException;
+import redis.clients.jedis.Client;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+/**
+ * Bulk read of many elements over one connection. Elements are split in
+ * chunks and the commands of a chunk are sent before the replies of the
+ * previous one are read, so that Redis processes a chunk while the previous
+ * one is deserialized.
+ *
+ * @author Mathieu MAST
+ * @param <E> element
+ */
+abstract class ChunkedRead<E> implements RedisObject.Work<Boolean> {
+
+    /**
+     * Default chunk size.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private final List<E> elements;
+
+    private final int chunkSize;
+
+    ChunkedRead(final Collection<? extends E> elements, final int chunkSize) {
+        this.elements = new ArrayList<>(elements);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Send the commands of a chunk (elements must be serialized before the
+     * first command is sent).
+     *
+     * @param client client
+     * @param chunk chunk
+     * @throws IOException
+     */
+    protected abstract void send(Client client, List<E> chunk) throws IOException;
+
+    /**
+     * Read all the replies of a chunk.
+     *
+     * @param client client
+     * @param chunk chunk
+     * @return false to stop reading
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    protected abstract boolean receive(Client client, List<E> chunk) throws IOException, ClassNotFoundException;
+
+    /**
+     * Read all chunks.
+     *
+     * @param jedis jedis
+     * @return false if reading was stopped
+     */
+    @Override
+    public Boolean work(Jedis jedis) {
+        Client client = jedis.getClient();
+        List<List<E>> chunks = new ArrayList<>();
+        for (int i = 0; i < elements.size(); i += chunkSize) {
+            chunks.add(elements.subList(i, Math.min(i + chunkSize, elements.size())));
+        }
+        try {
+            if (!chunks.isEmpty()) {
+                send(client, chunks.get(0));
+            }
+            for (int i = 0; i < chunks.size(); i++) {
+                if (i + 1 < chunks.size()) {
+                    send(client, chunks.get(i + 1));
+                }
+                if (!receive(client, chunks.get(i))) {
+                    // replies of the next chunk must not be left on the connection
+                    client.getAll();
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException | ClassNotFoundException ex) {
+            client.getAll();
+            throw new RedisobjectsException(ex);
+        } catch (JedisDataException ex) {
+            client.getAll();
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.redis.objects;
+
+/**
+ * Policy deciding when the commands pending in a write pipeline are synced.
+ *
+ * A pipeline is synced as soon as the policy asks for it after a command is
+ * enqueued, and at the latest after the delay of the policy.
+ *
+ * @author Mathieu MAST
+ */
+public interface FlushPolicy {
+
+    /**
+     * Test if pending commands must be synced now.
+     *
+     * @param commands pending commands
+     * @param bytes serialized keys and values of the pending commands (0 if
+     * bytes are not counted)
+     * @return true to sync the pipeline
+     */
+    boolean sync(int commands, long bytes);
+
+    /**
+     * Max delay between the first pending command and the sync of the
+     * pipeline.
+     *
+     * @return delay (ms)
+     */
+    long delay();
+
+    /**
+     * Test if the policy uses the pending bytes (counting them costs a few
+     * nanoseconds per serialization).
+     *
+     * @return true to count bytes
+     */
+    boolean countsBytes();
+
+    /**
+     * Pipeline was synced.
+     *
+     * @param commands synced commands
+     * @param bytes serialized keys and values of the synced commands
+     * @param nanos duration of the sync (ns)
+     */
+    void synced(int commands, long bytes, long nanos);
+}
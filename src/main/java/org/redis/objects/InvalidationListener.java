@@ -0,0 +1,229 @@
+package org.redis.objects;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import redis.clients.jedis.BinaryJedisPubSub;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * Listener of the invalidation messages of near-cached maps, with one
+ * subscriber connection per pool: the invalidation channels are listened with
+ * a pattern and messages are dispatched to the handlers of their channel.
+ *
+ * The subscriber thread is started by the first handler registered and
+ * stopped when the last one is unregistered or when the listener of the pool
+ * is closed. Handlers are held weakly, so maps built per request and never
+ * closed are not retained.
+ *
+ * @author Mathieu MAST
+ */
+class InvalidationListener {
+
+    /**
+     * Prefix of the invalidation channel of a map (followed by its name).
+     */
+    static final String CHANNEL_PREFIX = "redis-objects:invalidate:";
+
+    private static final byte[] PATTERN = SafeEncoder.encode(CHANNEL_PREFIX + "*");
+
+    private static final long RESUBSCRIBE_DELAY = 1000;
+
+    private static final ConcurrentMap<JedisPool, InvalidationListener> LISTENERS = new ConcurrentHashMap<>();
+
+    /**
+     * Handler of the invalidation messages of a channel.
+     */
+    interface Handler {
+
+        /**
+         * Invalidate a key.
+         *
+         * @param message serialized key (empty to invalidate all keys)
+         */
+        void invalidate(byte[] message);
+    }
+
+    private final JedisPool jedisPool;
+
+    private final Map<String, Set<Handler>> handlers = new HashMap<>();
+
+    private Subscriber subscriber = null;
+
+    private InvalidationListener(final JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+    }
+
+    /**
+     * Listener of a pool.
+     *
+     * @param jedisPool pool
+     * @return listener
+     */
+    static InvalidationListener of(JedisPool jedisPool) {
+        InvalidationListener listener = LISTENERS.get(jedisPool);
+        if (null == listener) {
+            InvalidationListener created = new InvalidationListener(jedisPool);
+            listener = LISTENERS.putIfAbsent(jedisPool, created);
+            if (null == listener) {
+                listener = created;
+            }
+        }
+        return listener;
+    }
+
+    /**
+     * Stop the listener of a pool (its handlers are no longer notified).
+     *
+     * @param jedisPool pool
+     */
+    static void close(JedisPool jedisPool) {
+        InvalidationListener listener = LISTENERS.remove(jedisPool);
+        if (null != listener) {
+            listener.stop();
+        }
+    }
+
+    /**
+     * Register the handler of a channel, starting the subscriber if needed.
+     *
+     * @param channel channel
+     * @param handler handler
+     */
+    synchronized void register(String channel, Handler handler) {
+        Set<Handler> set = handlers.get(channel);
+        if (null == set) {
+            set = Collections.newSetFromMap(new WeakHashMap<Handler, Boolean>());
+            handlers.put(channel, set);
+        }
+        set.add(handler);
+        if (null == subscriber) {
+            subscriber = new Subscriber();
+            Thread thread = new Thread(subscriber, "redis-objects-invalidation");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Unregister the handler of a channel, stopping the subscriber after the
+     * last one.
+     *
+     * @param channel channel
+     * @param handler handler
+     */
+    synchronized void unregister(String channel, Handler handler) {
+        Set<Handler> set = handlers.get(channel);
+        if (null != set) {
+            set.remove(handler);
+            if (set.isEmpty()) {
+                handlers.remove(channel);
+            }
+        }
+        if (handlers.isEmpty()) {
+            stop();
+        }
+    }
+
+    /**
+     * Test if messages are received (handlers must not cache values
+     * otherwise).
+     *
+     * @return true if subscribed
+     */
+    synchronized boolean isSubscribed() {
+        return null != subscriber && subscriber.isSubscribed();
+    }
+
+    private synchronized void stop() {
+        if (null != subscriber) {
+            subscriber.close();
+            subscriber = null;
+        }
+    }
+
+    private synchronized List<Handler> handlers(String channel) {
+        Set<Handler> set = handlers.get(channel);
+        return null == set ? Collections.<Handler>emptyList() : new ArrayList<>(set);
+    }
+
+    private synchronized List<Handler> handlers() {
+        List<Handler> res = new ArrayList<>();
+        for (Set<Handler> set : handlers.values()) {
+            res.addAll(set);
+        }
+        return res;
+    }
+
+    private void invalidateAll() {
+        for (Handler handler : handlers()) {
+            handler.invalidate(new byte[0]);
+        }
+    }
+
+    /**
+     * Subscriber of the pattern of invalidation channels, resubscribing after
+     * connection failures.
+     */
+    private class Subscriber extends BinaryJedisPubSub implements Runnable {
+
+        private volatile boolean closed = false;
+
+        @Override
+        public void run() {
+            while (!closed) {
+                Jedis jedis = null;
+                try {
+                    jedis = jedisPool.getResource();
+                    jedis.psubscribe(this, PATTERN);
+                    jedisPool.returnResource(jedis);
+                } catch (JedisConnectionException ex) {
+                    if (null != jedis) {
+                        jedisPool.returnBrokenResource(jedis);
+                    }
+                } finally {
+                    // messages may have been missed
+                    invalidateAll();
+                }
+                if (!closed) {
+                    try {
+                        Thread.sleep(RESUBSCRIBE_DELAY);
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void onPSubscribe(byte[] pattern, int subscribedChannels) {
+            invalidateAll();
+            if (closed) {
+                punsubscribe();
+            }
+        }
+
+        @Override
+        public void onPMessage(byte[] pattern, byte[] channel, byte[] message) {
+            for (Handler handler : handlers(SafeEncoder.encode(channel))) {
+                handler.invalidate(message);
+            }
+        }
+
+        void close() {
+            closed = true;
+            if (isSubscribed()) {
+                punsubscribe();
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.redis.objects;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import org.redis.objects.exceptions.RedisobjectsException;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * Lua script, evaluated with EVALSHA (falling back to EVAL when the script is
+ * not cached by the server).
+ *
+ * @author Mathieu MAST
+ */
+class LuaScript {
+
+    private final byte[] script;
+
+    private final byte[] sha1;
+
+    LuaScript(final String script) {
+        this.script = SafeEncoder.encode(script);
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(this.script)) {
+                sb.append(String.format("%02x", b));
+            }
+            this.sha1 = SafeEncoder.encode(sb.toString());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RedisobjectsException(ex);
+        }
+    }
+
+    /**
+     * Evaluate script.
+     *
+     * @param jedis jedis
+     * @param keys keys
+     * @param args arguments
+     * @return script result
+     */
+    Object eval(Jedis jedis, List<byte[]> keys, List<byte[]> args) {
+        try {
+            return jedis.evalsha(sha1, keys, args);
+        } catch (JedisDataException ex) {
+            if (null == ex.getMessage() || !ex.getMessage().startsWith("NOSCRIPT")) {
+                throw ex;
+            }
+            return jedis.eval(script, keys, args);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.redis.objects;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Near cache: bounded local store of deserialized values with size and TTL
+ * eviction.
+ *
+ * @author Mathieu MAST
+ * @param <K>
+ * @param <V>
+ */
+public class NearCache<K, V> {
+
+    private final int maxSize;
+
+    private final long ttl;
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private long generation = 0;
+
+    /**
+     * Create near cache.
+     *
+     * @param maxSize max number of entries
+     * @param ttl time to live of entries in milliseconds (0 for no TTL)
+     */
+    public NearCache(final int maxSize, final long ttl) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > NearCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get cached entry.
+     *
+     * @param key key
+     * @return entry or null if key is not cached
+     */
+    synchronized public Entry<V> get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (null != entry && entry.isExpired()) {
+            entries.remove(key);
+            evictions.incrementAndGet();
+            entry = null;
+        }
+        if (null == entry) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * Cache value if no invalidation occurred since generation was read.
+     *
+     * @param key key
+     * @param value value
+     * @param generation generation read before loading value
+     */
+    synchronized public void put(K key, V value, long generation) {
+        if (this.generation != generation) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, 0 == ttl ? 0 : System.currentTimeMillis() + ttl));
+    }
+
+    /**
+     * Invalidate key.
+     *
+     * @param key key
+     */
+    synchronized public void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    /**
+     * Invalidate all keys.
+     */
+    synchronized public void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    /**
+     * Current generation, incremented by every invalidation.
+     *
+     * @return generation
+     */
+    synchronized public long generation() {
+        return generation;
+    }
+
+    synchronized public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Cached entry.
+     *
+     * @param <V>
+     */
+    public static class Entry<V> {
+
+        private final V value;
+
+        private final long expireAt;
+
+        Entry(V value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        boolean isExpired() {
+            return 0 != expireAt && expireAt < System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.redis.objects;
+
+import java.util.Map;
+import redis.clients.jedis.BuilderFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+/**
+ * Pipeline of the pipeline managers, counting its commands and adding the
+ * commands missing from Jedis pipelines.
+ *
+ * @author Mathieu MAST
+ */
+class ObjectsPipeline extends Pipeline {
+
+    ObjectsPipeline(Jedis jedis) {
+        setClient(jedis.getClient());
+    }
+
+    /**
+     * Number of replies expected when the pipeline is synced (position of the
+     * next command).
+     *
+     * @return number of replies
+     */
+    int responses() {
+        return getPipelinedResponseLength();
+    }
+
+    /**
+     * ASKING, so that the next command is served by the node importing its
+     * slot.
+     *
+     * @return status
+     */
+    Response<String> asking() {
+        client.asking();
+        return getResponse(BuilderFactory.STRING);
+    }
+
+    /**
+     * Binary ZADD of several members.
+     *
+     * @param key key
+     * @param scoreMembers scores by member
+     * @return number of members added
+     */
+    Response<Long> zadd(byte[] key, Map<byte[], Double> scoreMembers) {
+        getClient(key).zaddBinary(key, scoreMembers);
+        return getResponse(BuilderFactory.LONG);
+    }
+
+    /**
+     * Binary ZADD of several members in a pipeline of a pipeline manager.
+     *
+     * @param pipeline pipeline
+     * @param key key
+     * @param scoreMembers scores by member
+     * @return number of members added
+     */
+    static Response<Long> zadd(Pipeline pipeline, byte[] key, Map<byte[], Double> scoreMembers) {
+        return ((ObjectsPipeline) pipeline).zadd(key, scoreMembers);
+    }
+}
@@ -0,0 +1,122 @@
+package org.redis.objects;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.redis.objects.exceptions.RedisobjectsException;
+import redis.clients.jedis.Jedis;
+
+/**
+ * Iterator paging through an ordered Redis object by offset (ZRANGE,
+ * ZRANGEBYSCORE...). Each page is fetched and deserialized only when the
+ * previous one is consumed, so memory use is bounded by the page size.
+ *
+ * @author Mathieu MAST
+ * @param <T> element returned by the iterator
+ */
+abstract class PageIterator<T> implements Iterator<T> {
+
+    /**
+     * Default page size.
+     */
+    static final int DEFAULT_PAGE_SIZE = 100;
+
+    private final RedisObject<?, ?> redisObject;
+
+    private final int pageSize;
+
+    private long offset = 0;
+
+    private boolean finished = false;
+
+    private Iterator<byte[]> page = Collections.emptyIterator();
+
+    private byte[] last = null;
+
+    PageIterator(final RedisObject<?, ?> redisObject, final int pageSize) {
+        this.redisObject = redisObject;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Fetch a page.
+     *
+     * @param jedis jedis
+     * @param offset offset of the page
+     * @param count size of the page
+     * @return page
+     */
+    protected abstract Collection<byte[]> fetch(Jedis jedis, long offset, int count);
+
+    /**
+     * Deserialize a raw element.
+     *
+     * @param raw raw element
+     * @return element
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    protected abstract T convert(byte[] raw) throws IOException, ClassNotFoundException;
+
+    /**
+     * Remove a raw element from Redis.
+     *
+     * @param raw raw element
+     */
+    protected void remove(byte[] raw) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext() && !finished) {
+            final long current = offset;
+            Collection<byte[]> res = redisObject.run(new RedisObject.Work<Collection<byte[]>>() {
+
+                @Override
+                public Collection<byte[]> work(Jedis jedis) {
+                    return fetch(jedis, current, pageSize);
+                }
+            });
+            offset += res.size();
+            finished = res.size() < pageSize;
+            page = res.iterator();
+        }
+        return page.hasNext();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        last = page.next();
+        try {
+            return convert(last);
+        } catch (IOException | ClassNotFoundException ex) {
+            throw new RedisobjectsException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove() {
+        if (null == last) {
+            throw new IllegalStateException();
+        }
+        remove(last);
+        last = null;
+        // removed element was before the next page
+        offset--;
+    }
+}
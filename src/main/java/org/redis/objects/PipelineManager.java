@@ -1,82 +1,640 @@
 package org.redis.objects;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import lombok.Getter;
 import lombok.Setter;
+import org.redis.objects.metrics.Metrics;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.Pipeline;
-import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
 
 /**
  * Pipeline Manager.
  *
+ * Writes are spread over stripes, each one owning its own pipeline and pooled
+ * connection, so that threads writing to the same object do not wait for each
+ * other. A thread always uses the same stripe: its writes are sent in order,
+ * but writes of different threads may reach Redis in a different order.
+ *
+ * Background syncs run on a scheduler shared by the pipeline managers (by
+ * default, a daemon scheduler shared by the whole JVM), with at most one
+ * pending task per stripe.
+ *
+ * Objects spread over several nodes use one pipeline manager per node: the
+ * managers of the other nodes are created on demand and synced in parallel.
+ * A work whose commands are redirected (MOVED or ASK) is sent again to the
+ * pipeline of the target node, synced at once.
+ *
  * @author Mathieu MAST
  */
 public class PipelineManager {
 
+    private static final Logger LOGGER = Logger.getLogger(PipelineManager.class.getName());
+
+    private static volatile ScheduledExecutorService defaultScheduler;
+
     private final JedisPool jedisPool;
 
+    /**
+     * Policy deciding when pipelines are synced.
+     */
     @Getter
     @Setter
-    private int maxWithoutSync = 100;
+    private FlushPolicy flushPolicy = new ThresholdFlushPolicy();
 
-    @Getter
-    @Setter
-    private int delayBeforeSync = 100;
+    private final Stripe[] stripes;
 
-    private long count = 0;
+    private final ScheduledExecutorService scheduler;
 
-    private Jedis jedis = null;
+    private final String name;
 
-    @Getter
-    private Pipeline pipeline = null;
+    private final Metrics metrics;
+
+    /**
+     * Pipeline managers of the nodes, by pool (shared by the managers of the
+     * same nodes).
+     */
+    private final ConcurrentMap<JedisPool, PipelineManager> managers;
 
-    private final Timer timer = new Timer();
+    /**
+     * Nodes redirecting commands (null if none).
+     */
+    private volatile RedisNodes nodes;
 
     public PipelineManager(JedisPool jedisPool) {
+        this(jedisPool, 1);
+    }
+
+    public PipelineManager(JedisPool jedisPool, int pipelines) {
+        this(jedisPool, pipelines, null, null, null);
+    }
+
+    /**
+     * Create pipeline manager.
+     *
+     * @param jedisPool Jedis pool
+     * @param pipelines number of pipelines (each one holds a connection of the
+     * pool while it is not synced)
+     * @param name name of the object reported to metrics
+     * @param metrics metrics (null if disabled)
+     * @param scheduler scheduler of background syncs (null for the default
+     * scheduler)
+     */
+    public PipelineManager(JedisPool jedisPool, int pipelines, String name, Metrics metrics, ScheduledExecutorService scheduler) {
+        this(jedisPool, pipelines, name, metrics, null == scheduler ? defaultScheduler() : scheduler, new ConcurrentHashMap<JedisPool, PipelineManager>());
+    }
+
+    private PipelineManager(JedisPool jedisPool, int pipelines, String name, Metrics metrics, ScheduledExecutorService scheduler, ConcurrentMap<JedisPool, PipelineManager> managers) {
         this.jedisPool = jedisPool;
+        this.scheduler = scheduler;
+        this.name = name;
+        this.metrics = metrics;
+        this.stripes = new Stripe[pipelines];
+        for (int i = 0; i < pipelines; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.managers = managers;
+        managers.putIfAbsent(jedisPool, this);
+    }
+
+    /**
+     * Max commands before sync of the flush policy.
+     *
+     * @return max commands of a threshold policy (default max otherwise)
+     * @deprecated use {@link #getFlushPolicy()}
+     */
+    @Deprecated
+    public int getMaxWithoutSync() {
+        return flushPolicy instanceof ThresholdFlushPolicy ? ((ThresholdFlushPolicy) flushPolicy).getMaxCommands() : ThresholdFlushPolicy.DEFAULT_MAX_COMMANDS;
     }
 
-    synchronized public void pipe() {
-        if (0 == count % maxWithoutSync) {
+    /**
+     * Replace the flush policy with a threshold policy of max commands,
+     * keeping the delay (and the max bytes of a threshold policy).
+     *
+     * @param maxWithoutSync max commands before sync
+     * @deprecated use {@link #setFlushPolicy(FlushPolicy)}
+     */
+    @Deprecated
+    public void setMaxWithoutSync(int maxWithoutSync) {
+        setFlushPolicy(new ThresholdFlushPolicy(maxWithoutSync, maxBytes(), flushPolicy.delay()));
+    }
+
+    /**
+     * Delay before background sync of the flush policy.
+     *
+     * @return delay (ms)
+     * @deprecated use {@link #getFlushPolicy()}
+     */
+    @Deprecated
+    public int getDelayBeforeSync() {
+        return (int) flushPolicy.delay();
+    }
+
+    /**
+     * Replace the flush policy with a threshold policy of delay, keeping the
+     * max commands (and the max bytes of a threshold policy).
+     *
+     * @param delayBeforeSync delay before background sync (ms)
+     * @deprecated use {@link #setFlushPolicy(FlushPolicy)}
+     */
+    @Deprecated
+    public void setDelayBeforeSync(int delayBeforeSync) {
+        setFlushPolicy(new ThresholdFlushPolicy(getMaxWithoutSync(), maxBytes(), delayBeforeSync));
+    }
+
+    private long maxBytes() {
+        return flushPolicy instanceof ThresholdFlushPolicy ? ((ThresholdFlushPolicy) flushPolicy).getMaxBytes() : 0;
+    }
+
+    /**
+     * Get the pipeline manager of a node, with the same pipelines, flush
+     * policy, metrics and scheduler.
+     *
+     * @param nodes nodes
+     * @param pool pool of the node
+     * @return pipeline manager
+     */
+    public PipelineManager forNode(RedisNodes nodes, JedisPool pool) {
+        PipelineManager manager = managers.get(pool);
+        if (null == manager) {
+            PipelineManager created = new PipelineManager(pool, stripes.length, name, metrics, scheduler, managers);
+            created.setFlushPolicy(flushPolicy);
+            manager = managers.putIfAbsent(pool, created);
+            if (null == manager) {
+                manager = created;
+            }
+        }
+        if (null == manager.nodes) {
+            manager.nodes = nodes;
+        }
+        return manager;
+    }
+
+    /**
+     * Get the stripe of the current thread.
+     *
+     * @return stripe
+     */
+    public Stripe stripe() {
+        return stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+    }
+
+    /**
+     * Get a connection of the pool.
+     *
+     * @return connection
+     */
+    public Jedis getResource() {
+        if (null == metrics) {
+            return jedisPool.getResource();
+        }
+        long start = System.nanoTime();
+        try {
+            return jedisPool.getResource();
+        } finally {
+            metrics.poolWait(name, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Return a connection to the pool.
+     *
+     * @param jedis connection
+     */
+    public void returnResource(Jedis jedis) {
+        jedisPool.returnResource(jedis);
+    }
+
+    /**
+     * Return a broken connection to the pool.
+     *
+     * @param jedis connection
+     */
+    public void returnBrokenResource(Jedis jedis) {
+        jedisPool.returnBrokenResource(jedis);
+    }
+
+    /**
+     * Sync all stripes.
+     */
+    public void sync() {
+        for (Stripe stripe : stripes) {
+            stripe.sync();
+        }
+    }
+
+    /**
+     * Sync all stripes of the managers of all nodes, in parallel.
+     */
+    public void syncAll() {
+        if (1 == managers.size()) {
             sync();
+            return;
         }
-        if (null == pipeline) {
-            jedis = jedisPool.getResource();
-            pipeline = jedis.pipelined();
+        List<Runnable> syncs = new ArrayList<>();
+        for (final PipelineManager manager : managers.values()) {
+            syncs.add(new Runnable() {
+
+                @Override
+                public void run() {
+                    manager.sync();
+                }
+            });
         }
-        count++;
+        inParallel(syncs);
     }
 
-    synchronized public void sync() {
-        if (null == pipeline) {
+    /**
+     * Run tasks of several nodes in parallel (in the common pool) and wait
+     * for them.
+     *
+     * @param tasks tasks
+     */
+    public static void inParallel(List<Runnable> tasks) {
+        if (1 == tasks.size()) {
+            tasks.get(0).run();
             return;
         }
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (Runnable task : tasks) {
+            futures.add(CompletableFuture.runAsync(task));
+        }
         try {
-            pipeline.sync();
-        } catch (JedisConnectionException ex) {
-            jedisPool.returnBrokenResource(jedis);
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
             throw ex;
-        } finally {
-            jedisPool.returnResource(jedis);
-            jedis = null;
-            pipeline = null;
         }
     }
 
-    synchronized public void delaySync() {
-        if (null != pipeline) {
-            return;
+    /**
+     * Run a task in background after the delay of the flush policy (the task
+     * is run immediately by the current thread if the scheduler is shut
+     * down).
+     *
+     * @param task task
+     */
+    public void schedule(Runnable task) {
+        schedule(task, flushPolicy.delay());
+    }
+
+    private void schedule(Runnable task, long delay) {
+        try {
+            scheduler.schedule(task, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            task.run();
         }
-        timer.schedule(new TimerTask() {
+    }
+
+    /**
+     * Create a scheduler of background syncs, with daemon threads.
+     *
+     * @param threads number of threads
+     * @return scheduler
+     */
+    public static ScheduledExecutorService newScheduler(int threads) {
+        return new ScheduledThreadPoolExecutor(threads, new ThreadFactory() {
+
             @Override
-            public void run() {
-                if (null != pipeline) {
-                    sync();
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "redis-objects-sync");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    private static ScheduledExecutorService defaultScheduler() {
+        if (null == defaultScheduler) {
+            synchronized (PipelineManager.class) {
+                if (null == defaultScheduler) {
+                    defaultScheduler = newScheduler(Runtime.getRuntime().availableProcessors());
                 }
             }
-        }, delayBeforeSync);
+        }
+        return defaultScheduler;
+    }
+
+    /**
+     * Callback notified when the commands of a pipeline are synced.
+     */
+    public interface SyncCallback {
+
+        /**
+         * Responses of the pipeline are available.
+         */
+        void synced();
+
+        /**
+         * Pipeline could not be synced.
+         *
+         * @param ex cause
+         */
+        void failed(RuntimeException ex);
+    }
+
+    /**
+     * Work sent again when one of its pipelined commands is redirected to
+     * another node (MOVED or ASK).
+     */
+    public interface Redirectable {
+
+        /**
+         * Send the work to the node of a redirection.
+         *
+         * @param ex redirection of one of the commands of the work
+         * @throws RuntimeException if the work cannot be sent again
+         */
+        void redirected(JedisRedirectionException ex);
+    }
+
+    /**
+     * Commands of a work enqueued in a pipeline.
+     */
+    private static class Sent {
+
+        private final int from;
+
+        private final int to;
+
+        private final Redirectable work;
+
+        private final SyncCallback callback;
+
+        Sent(int from, int to, Redirectable work, SyncCallback callback) {
+            this.from = from;
+            this.to = to;
+            this.work = work;
+            this.callback = callback;
+        }
+
+        /**
+         * First redirection among the replies of the commands.
+         *
+         * @param replies replies of the pipeline
+         * @return redirection (null if none)
+         */
+        JedisRedirectionException redirection(List<Object> replies) {
+            for (int i = from; i < to && i < replies.size(); i++) {
+                if (replies.get(i) instanceof JedisRedirectionException) {
+                    return (JedisRedirectionException) replies.get(i);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Pipeline stripe.
+     */
+    public class Stripe {
+
+        private int commands = 0;
+
+        private long bytes = 0;
+
+        private Jedis jedis = null;
+
+        @Getter
+        private Pipeline pipeline = null;
+
+        private List<Sent> sent = new ArrayList<>();
+
+        private boolean scheduled = false;
+
+        private boolean syncRequested = false;
+
+        synchronized public void pipe() {
+            if (null == pipeline) {
+                jedis = getResource();
+                pipeline = new ObjectsPipeline(jedis);
+            }
+            commands++;
+        }
+
+        /**
+         * Count bytes written in the pipeline by the current command.
+         *
+         * @param written bytes
+         */
+        synchronized public void written(long written) {
+            bytes += written;
+        }
+
+        /**
+         * Sync pipeline if the flush policy requires it, else schedule its
+         * sync.
+         */
+        public void piped() {
+            boolean sync;
+            synchronized (this) {
+                sync = flushPolicy.sync(commands, bytes);
+            }
+            if (sync) {
+                sync();
+            } else {
+                delaySync();
+            }
+        }
+
+        /**
+         * Register a callback for the next sync of the pipeline.
+         *
+         * @param callback callback
+         */
+        synchronized public void onSync(SyncCallback callback) {
+            int position = position();
+            sent.add(new Sent(position, position, null, callback));
+        }
+
+        /**
+         * Position of the next command in the pipeline.
+         *
+         * @return position
+         */
+        synchronized public int position() {
+            return null == pipeline ? 0 : ((ObjectsPipeline) pipeline).responses();
+        }
+
+        /**
+         * Enqueue ASKING, so that the next command is served by the node
+         * importing its slot.
+         */
+        synchronized public void asking() {
+            ((ObjectsPipeline) pipeline).asking();
+        }
+
+        /**
+         * Register the commands of a work enqueued since a position: if one
+         * of them is redirected, the work is sent again in place of notifying
+         * the callback.
+         *
+         * @param from position of the first command of the work
+         * @param work work
+         * @param callback callback (null if none)
+         */
+        synchronized public void sent(int from, Redirectable work, SyncCallback callback) {
+            sent.add(new Sent(from, position(), work, callback));
+        }
+
+        /**
+         * Sync the pipeline, then send again the works redirected to other
+         * nodes.
+         *
+         * @throws RuntimeException if the pipeline could not be synced or a
+         * redirected work could not be sent again (the callbacks of the works
+         * are notified)
+         */
+        public void sync() {
+            List<Sent> synced;
+            List<Object> replies = null;
+            RuntimeException error = null;
+            synchronized (this) {
+                if (null == pipeline) {
+                    return;
+                }
+                synced = sent;
+                sent = new ArrayList<>();
+                long start = System.nanoTime();
+                boolean broken = false;
+                try {
+                    if (null == nodes) {
+                        pipeline.sync();
+                    } else {
+                        replies = pipeline.syncAndReturnAll();
+                    }
+                } catch (RuntimeException ex) {
+                    // replies left on the connection can no longer be matched
+                    broken = true;
+                    error = ex;
+                } finally {
+                    if (broken) {
+                        jedisPool.returnBrokenResource(jedis);
+                    } else {
+                        jedisPool.returnResource(jedis);
+                    }
+                    jedis = null;
+                    pipeline = null;
+                }
+                long nanos = System.nanoTime() - start;
+                flushPolicy.synced(commands, bytes, nanos);
+                if (null != metrics) {
+                    metrics.sync(name, commands, nanos, null != error);
+                }
+                commands = 0;
+                bytes = 0;
+            }
+            RuntimeException failure = error;
+            for (Sent work : synced) {
+                try {
+                    JedisRedirectionException redirection = null == replies || null == work.work ? null : work.redirection(replies);
+                    if (null != error) {
+                        if (null != work.callback) {
+                            work.callback.failed(error);
+                        }
+                    } else if (null != redirection) {
+                        work.work.redirected(redirection);
+                    } else if (null != work.callback) {
+                        work.callback.synced();
+                    }
+                } catch (RuntimeException ex) {
+                    // redirected work not sent again
+                    if (null != work.callback) {
+                        work.callback.failed(ex);
+                    }
+                    if (null == failure) {
+                        failure = ex;
+                    }
+                }
+            }
+            if (null != failure) {
+                throw failure;
+            }
+        }
+
+        synchronized public void delaySync() {
+            if (scheduled || null == pipeline) {
+                return;
+            }
+            scheduled = true;
+            schedule(new SyncTask(this, false), flushPolicy.delay());
+        }
+
+        /**
+         * Sync pipeline as soon as possible, in background.
+         */
+        synchronized public void requestSync() {
+            if (syncRequested || null == pipeline) {
+                return;
+            }
+            syncRequested = true;
+            schedule(new SyncTask(this, true), 0);
+        }
+    }
+
+    /**
+     * Report the failure of a background sync or flush: its writes are lost,
+     * and plain pipelined writes have no callback to notify.
+     *
+     * @param metrics metrics (null if disabled)
+     * @param object name of the object
+     * @param operation name of the operation
+     * @param nanos duration (ns)
+     * @param ex failure
+     */
+    static void lost(Metrics metrics, String object, String operation, long nanos, RuntimeException ex) {
+        if (null != metrics) {
+            metrics.operation(object, operation, nanos, true);
+        }
+        LOGGER.log(Level.WARNING, "Background " + operation + " of " + object + " failed, writes are lost", ex);
+    }
+
+    /**
+     * Task syncing a stripe.
+     */
+    private class SyncTask implements Runnable {
+
+        private final Stripe stripe;
+
+        private final boolean requested;
+
+        SyncTask(Stripe stripe, boolean requested) {
+            this.stripe = stripe;
+            this.requested = requested;
+        }
+
+        @Override
+        public void run() {
+            synchronized (stripe) {
+                if (requested) {
+                    stripe.syncRequested = false;
+                } else {
+                    stripe.scheduled = false;
+                }
+            }
+            long start = System.nanoTime();
+            try {
+                stripe.sync();
+            } catch (RuntimeException ex) {
+                // callbacks are notified of the failure, the scheduler goes on
+                lost(metrics, name, "sync", System.nanoTime() - start, ex);
+            }
+        }
     }
 }
@@ -0,0 +1,187 @@
+package org.redis.objects;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.redis.objects.exceptions.RedisobjectsException;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisMovedDataException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.util.JedisClusterCRC16;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * Redis Cluster nodes: keys are served by the master of their hash slot, read
+ * from CLUSTER SLOTS and updated by MOVED redirections.
+ *
+ * Each Redis object lives in the slot of its name (a bucketed map in the slots
+ * of its buckets): commands of several keys (set algebra, temporary keys) need
+ * their keys in the same slot, which hash tags ({...}) of names guarantee.
+ *
+ * @author Mathieu MAST
+ */
+public class RedisCluster implements RedisNodes {
+
+    /**
+     * Number of hash slots.
+     */
+    public static final int SLOTS = 16384;
+
+    private final GenericObjectPoolConfig poolConfig;
+
+    private final int timeout;
+
+    private final ConcurrentMap<String, JedisPool> pools = new ConcurrentHashMap<>();
+
+    private volatile JedisPool[] slots = new JedisPool[SLOTS];
+
+    public RedisCluster(final Set<HostAndPort> nodes) {
+        this(nodes, new GenericObjectPoolConfig(), Protocol.DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Create Redis Cluster nodes.
+     *
+     * @param nodes some nodes of the cluster (slots are read from the first
+     * one answering)
+     * @param poolConfig configuration of the pool of each node
+     * @param timeout connection and read timeout (ms)
+     */
+    public RedisCluster(final Set<HostAndPort> nodes, final GenericObjectPoolConfig poolConfig, final int timeout) {
+        this.poolConfig = poolConfig;
+        this.timeout = timeout;
+        for (HostAndPort node : nodes) {
+            getPool(node);
+        }
+        refresh();
+    }
+
+    /**
+     * Hash slot of a key.
+     *
+     * @param key key
+     * @return slot
+     */
+    public static int slot(String key) {
+        return JedisClusterCRC16.getSlot(key);
+    }
+
+    /**
+     * Pool of a node.
+     *
+     * @param node node
+     * @return pool
+     */
+    public JedisPool getPool(HostAndPort node) {
+        String key = node.getHost() + ":" + node.getPort();
+        JedisPool pool = pools.get(key);
+        if (null == pool) {
+            JedisPool created = new JedisPool(poolConfig, node.getHost(), node.getPort(), timeout);
+            pool = pools.putIfAbsent(key, created);
+            if (null == pool) {
+                pool = created;
+            } else {
+                created.destroy();
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JedisPool getPool(String key) {
+        int slot = slot(key);
+        JedisPool pool = slots[slot];
+        if (null == pool) {
+            refresh();
+            pool = slots[slot];
+            if (null == pool) {
+                throw new RedisobjectsException("No node serves slot " + slot);
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<JedisPool> getPools() {
+        return pools.values();
+    }
+
+    /**
+     * Redis Cluster forwards PUBLISH to all the nodes.
+     *
+     * @return true
+     */
+    @Override
+    public boolean forwardsMessages() {
+        return true;
+    }
+
+    /**
+     * Update the slot of a MOVED redirection (an ASK redirection does not
+     * change the slot map).
+     *
+     * @param ex redirection
+     * @return pool of the target node
+     */
+    @Override
+    public JedisPool redirect(JedisRedirectionException ex) {
+        JedisPool pool = getPool(ex.getTargetNode());
+        if (ex instanceof JedisMovedDataException) {
+            slots[ex.getSlot()] = pool;
+        }
+        return pool;
+    }
+
+    /**
+     * Read the slot map with CLUSTER SLOTS from the first node answering.
+     */
+    public synchronized void refresh() {
+        JedisConnectionException error = null;
+        for (JedisPool pool : new ArrayList<>(pools.values())) {
+            try (Jedis jedis = pool.getResource()) {
+                slots = toSlots(jedis.clusterSlots());
+                return;
+            } catch (JedisConnectionException ex) {
+                error = ex;
+            }
+        }
+        throw null == error ? new RedisobjectsException("No cluster node") : error;
+    }
+
+    private JedisPool[] toSlots(List<Object> ranges) {
+        JedisPool[] res = new JedisPool[SLOTS];
+        for (Object range : ranges) {
+            List<Object> info = (List<Object>) range;
+            List<Object> master = (List<Object>) info.get(2);
+            JedisPool pool = getPool(new HostAndPort(SafeEncoder.encode((byte[]) master.get(0)), ((Long) master.get(1)).intValue()));
+            for (int slot = ((Long) info.get(0)).intValue(); slot <= ((Long) info.get(1)).intValue(); slot++) {
+                res[slot] = pool;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        for (JedisPool pool : pools.values()) {
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package org.redis.objects;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.experimental.Builder;
+import org.redis.objects.exceptions.RedisobjectsException;
+import org.redis.objects.metrics.Metrics;
+import org.redis.objects.serializer.LongSerializer;
+import org.redis.objects.serializer.Serializer;
+import redis.clients.jedis.Client;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * Redis map of counters: counters are stored as Redis integer strings and
+ * incremented on the server with HINCRBY (or HINCRBYFLOAT), so that concurrent
+ * increments of several applications are never lost.
+ *
+ * A counter incremented by a float delta can not be incremented by an integer
+ * delta anymore.
+ *
+ * @author Mathieu MAST
+ * @param <K>
+ */
+public class RedisCounterMap<K> extends RedisObject<K, Long> {
+
+    private final int chunkSize;
+
+    public RedisCounterMap(final JedisPool jedisPool, final String name) {
+        this(jedisPool, name, null, null, null, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * Create Redis counter map.
+     *
+     * @param jedisPool Jedis pool
+     * @param name name of the hash in Redis
+     * @param syncImmediate sync pipeline after each write
+     * @param maxWithoutSync max writes before pipeline sync
+     * @param delayBeforeSync delay before pipeline sync (ms)
+     * @param pipelines number of concurrent write pipelines (default: 1)
+     * @param keySerializer serializer of keys (default: Kryo)
+     * @param chunkSize max keys per HMGET of bulk reads (default: 1000)
+     * @param metrics metrics (default: none)
+     * @param flushPolicy policy syncing write pipelines (default: thresholds
+     * of maxWithoutSync and delayBeforeSync)
+     * @param pipelineManager pipeline manager shared with other objects
+     * (default: pipeline manager of the object, built with pipelines and
+     * flushPolicy)
+     * @param nodes nodes serving the keys of the object, in place of
+     * jedisPool (default: none)
+     */
+    @Builder
+    public RedisCounterMap(final JedisPool jedisPool, final String name, Boolean syncImmediate, Integer maxWithoutSync, Integer delayBeforeSync, Integer pipelines, Serializer keySerializer, Integer chunkSize, Metrics metrics, FlushPolicy flushPolicy, PipelineManager pipelineManager, RedisNodes nodes) {
+        super(jedisPool, name, syncImmediate, maxWithoutSync, delayBeforeSync, pipelines, null, keySerializer, new LongSerializer(), metrics, flushPolicy, pipelineManager, nodes);
+        this.chunkSize = null == chunkSize ? ChunkedRead.DEFAULT_CHUNK_SIZE : chunkSize;
+    }
+
+    /**
+     * Increment counter by one (pipelined).
+     *
+     * @param key key
+     */
+    public void increment(final K key) {
+        increment(key, 1);
+    }
+
+    /**
+     * Increment counter (pipelined).
+     *
+     * @param key key
+     * @param delta delta
+     */
+    public void increment(final K key, final long delta) {
+        pipelined(new PipelinedWork<Boolean>() {
+
+            @Override
+            public Boolean work(Pipeline pipeline) {
+                try {
+                    pipeline.hincrBy(SafeEncoder.encode(name), keyToBytes(key), delta);
+                    return true;
+                } catch (IOException ex) {
+                    throw new RedisobjectsException(ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Increment counter by a float delta (pipelined).
+     *
+     * @param key key
+     * @param delta delta
+     */
+    public void increment(final K key, final double delta) {
+        pipelined(new PipelinedWork<Boolean>() {
+
+            @Override
+            public Boolean work(Pipeline pipeline) {
+                try {
+                    pipeline.hincrByFloat(SafeEncoder.encode(name), keyToBytes(key), delta);
+                    return true;
+                } catch (IOException ex) {
+                    throw new RedisobjectsException(ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Increment counters (pipelined, one HINCRBY per counter).
+     *
+     * @param deltas deltas by key
+     */
+    public void incrementAll(final Map<? extends K, Long> deltas) {
+        pipelined(new PipelinedWork<Boolean>() {
+
+            @Override
+            public Boolean work(Pipeline pipeline) {
+                try {
+                    for (Map.Entry<? extends K, Long> en : deltas.entrySet()) {
+                        pipeline.hincrBy(SafeEncoder.encode(name), keyToBytes(en.getKey()), en.getValue());
+                    }
+                    return true;
+                } catch (IOException ex) {
+                    throw new RedisobjectsException(ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Increment counter and get its new value.
+     *
+     * @param key key
+     * @param delta delta
+     * @return new value
+     */
+    public long addAndGet(final K key, final long delta) {
+        return run(new Work<Long>() {
+
+            @Override
+            public Long work(Jedis jedis) {
+                try {
+                    return jedis.hincrBy(SafeEncoder.encode(name), keyToBytes(key), delta);
+                } catch (IOException ex) {
+                    throw new RedisobjectsException(ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Increment counter by a float delta and get its new value.
+     *
+     * @param key key
+     * @param delta delta
+     * @return new value
+     */
+    public double addAndGet(final K key, final double delta) {
+        return run(new Work<Double>() {
+
+            @Override
+            public Double work(Jedis jedis) {
+                try {
+                    return jedis.hincrByFloat(SafeEncoder.encode(name), keyToBytes(key), delta);
+                } catch (IOException ex) {
+                    throw new RedisobjectsException(ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Get counter.
+     *
+     * @param key key
+     * @return value (0 if counter does not exist)
+     */
+    public long get(final K key) {
+        byte[] bytes = getBytes(key);
+        return null == bytes ? 0 : toLong(bytes);
+    }
+
+    /**
+     * Get counter incremented by float deltas.
+     *
+     * @param key key
+     * @return value (0 if counter does not exist)
+     */
+    public double getDouble(final K key) {
+        byte[] bytes = getBytes(key);
+        return null == bytes ? 0 : Double.parseDouble(SafeEncoder.encode(bytes));
+    }
+
+    private byte[] getBytes(final K key) {
+        return run(new Work<byte[]>() {
+
+            @Override
+            public byte[] work(Jedis jedis) {
+                try {
+                    return jedis.hget(SafeEncoder.encode(name), keyToBytes(key));
+                } catch (IOException ex) {
+                    throw new RedisobjectsException(ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Get counters with HMGET, in chunks sent over one connection.
+     *
+     * @param keys keys
+     * @return existing counters by key
+     */
+    public Map<K, Long> getAll(final Collection<K> keys) {
+        final Map<K, Long> values = new LinkedHashMap<>();
+        run(new ChunkedRead<K>(keys, chunkSize) {
+
+            @Override
+            protected void send(Client client, List<K> chunk) throws IOException {
+                byte[][] fields = new byte[chunk.size()][];
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i] = keyToBytes(chunk.get(i));
+                }
+                client.hmget(SafeEncoder.encode(name), fields);
+            }
+
+            @Override
+            protected boolean receive(Client client, List<K> chunk) {
+                List<byte[]> res = client.getBinaryMultiBulkReply();
+                for (int i = 0; i < chunk.size(); i++) {
+                    if (null != res.get(i)) {
+                        values.put(chunk.get(i), toLong(res.get(i)));
+                    }
+                }
+                return true;
+            }
+        });
+        return values;
+    }
+
+    /**
+     * Test if counter exists.
+     *
+     * @param key key
+     * @return true if counter exists
+     */
+    public boolean containsKey(final K key) {
+        return run(new Work<Boolean>() {
+
+            @Override
+            public Boolean work(Jedis jedis) {
+                try {
+                    Boolean exists = jedis.hexists(SafeEncoder.encode(name), keyToBytes(key));
+                    return null == exists ? false : exists;
+                } catch (IOException ex) {
+                    throw new RedisobjectsException(ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Number of counters.
+     *
+     * @return size
+     */
+    public int size() {
+        return run(new Work<Integer>() {
+
+            @Override
+            public Integer work(Jedis jedis) {
+                Long l = jedis.hlen(name);
+                return null == l ? 0 : l.intValue();
+            }
+        });
+    }
+
+    /**
+     * Remove counter (pipelined).
+     *
+     * @param key key
+     */
+    public void remove(final K key) {
+        pipelined(new PipelinedWork<Boolean>() {
+
+            @Override
+            public Boolean work(Pipeline pipeline) {
+                try {
+                    pipeline.hdel(SafeEncoder.encode(name), keyToBytes(key));
+                    return true;
+                } catch (IOException ex) {
+                    throw new RedisobjectsException(ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Remove all counters (pipelined).
+     */
+    public void clear() {
+        pipelined(new PipelinedWork<Boolean>() {
+
+            @Override
+            public Boolean work(Pipeline pipeline) {
+                pipeline.del(SafeEncoder.encode(name));
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Parse a Redis integer string without intermediate String.
+     */
+    private static long toLong(byte[] bytes) {
+        int i = 0;
+        boolean negative = bytes.length > 0 && '-' == bytes[0];
+        if (negative) {
+            i++;
+        }
+        if (i == bytes.length) {
+            throw new RedisobjectsException("Counter is not an integer");
+        }
+        long res = 0;
+        for (; i < bytes.length; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new RedisobjectsException("Counter is not an integer");
+            }
+            res = res * 10 - digit;
+        }
+        return negative ? res : -res;
+    }
+}
@@ -1,20 +1,38 @@
 package org.redis.objects;
 
 import java.io.IOException;
+import java.util.AbstractCollection;
 import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import lombok.Getter;
 import lombok.experimental.Builder;
 import org.redis.objects.exceptions.RedisobjectsException;
+import org.redis.objects.metrics.Metrics;
 import org.redis.objects.serializer.Serializer;
+import redis.clients.jedis.Client;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
 import redis.clients.util.SafeEncoder;
 
 /**
@@ -26,13 +44,139 @@ import redis.clients.util.SafeEncoder;
  */
 public class RedisMap<K, V> extends RedisObject<K, V> implements Map<K, V> {
 
+    /**
+     * Near cache (null if disabled).
+     */
+    @Getter
+    private final NearCache<K, V> nearCache;
+
+    private final boolean publishInvalidations;
+
+    private final byte[] invalidationChannel;
+
+    private final InvalidationHandler invalidationHandler;
+
+    /**
+     * Listeners the invalidation handler is registered to (null until the near
+     * cache is first filled).
+     */
+    private volatile List<InvalidationListener> invalidationListeners;
+
+    private final int scanCount;
+
+    private final int chunkSize;
+
+    /**
+     * Names of the hashes in Redis (one per bucket).
+     */
+    private final byte[][] hashes;
+
+    /**
+     * Write-behind buffer (null if disabled).
+     */
+    private final WriteBuffer<K, V> writeBuffer;
+
+    private final Async async = new Async();
+
     public RedisMap(final JedisPool jedisPool, final String name) {
-        this(jedisPool, name, null, null, null, null);
+        this(jedisPool, name, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null);
     }
 
-    @Builder
+    /**
+     * Create Redis map with the options of the first versions (other
+     * options are set with the builder).
+     *
+     * @param jedisPool Jedis pool
+     * @param name name of the hash in Redis
+     * @param syncImmediate sync pipeline after each write
+     * @param maxWithoutSync max writes before pipeline sync
+     * @param delayBeforeSync delay before pipeline sync (ms)
+     * @param serializer serializer (default: Kryo)
+     */
     public RedisMap(final JedisPool jedisPool, final String name, Boolean syncImmediate, Integer maxWithoutSync, Integer delayBeforeSync, Serializer serializer) {
-        super(jedisPool, name, syncImmediate, maxWithoutSync, delayBeforeSync, serializer);
+        this(jedisPool, name, syncImmediate, maxWithoutSync, delayBeforeSync, null, serializer, null, null, null, null, null, null, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * Create Redis map.
+     *
+     * @param jedisPool Jedis pool
+     * @param name name of the hash in Redis
+     * @param syncImmediate sync pipeline after each write
+     * @param maxWithoutSync max writes before pipeline sync
+     * @param delayBeforeSync delay before pipeline sync (ms)
+     * @param pipelines number of concurrent write pipelines (default: 1)
+     * @param serializer serializer of keys and values (default: Kryo)
+     * @param keySerializer serializer of keys (default: serializer)
+     * @param valueSerializer serializer of values (default: serializer)
+     * @param nearCacheSize max entries of the near cache (null to disable near
+     * cache)
+     * @param nearCacheTtl time to live of near cache entries (ms, null for no
+     * TTL)
+     * @param publishInvalidations publish invalidation messages on writes
+     * (default: true if near cache is enabled)
+     * @param scanCount COUNT hint of HSCAN used by views (default: 100)
+     * @param chunkSize max keys per HMGET of bulk reads (default: 1000)
+     * @param writeBehind hold writes and send only the last value of each key,
+     * with one HMSET and one HDEL, when the pipeline would be synced (default:
+     * false)
+     * @param buckets number of hashes the entries are split in, by hash of
+     * the serialized key, named {name:bucket} so that the buckets of all maps
+     * are spread over the slots of Redis Cluster; a name holding braces is
+     * kept as is, in name:bucket, so that its own hash tag puts all the
+     * buckets in one slot (default: 1, the hash name)
+     * @param metrics metrics (default: none)
+     * @param flushPolicy policy syncing write pipelines (default: thresholds
+     * of maxWithoutSync and delayBeforeSync)
+     * @param pipelineManager pipeline manager shared with other objects
+     * (default: pipeline manager of the object, built with pipelines and
+     * flushPolicy)
+     * @param nodes nodes serving the keys of the object, in place of
+     * jedisPool (default: none)
+     */
+    @Builder
+    public RedisMap(final JedisPool jedisPool, final String name, Boolean syncImmediate, Integer maxWithoutSync, Integer delayBeforeSync, Integer pipelines, Serializer serializer, Serializer keySerializer, Serializer valueSerializer, Integer nearCacheSize, Integer nearCacheTtl, Boolean publishInvalidations, Integer scanCount, Integer chunkSize, Boolean writeBehind, Integer buckets, Metrics metrics, FlushPolicy flushPolicy, PipelineManager pipelineManager, RedisNodes nodes) {
+        super(jedisPool, name, syncImmediate, maxWithoutSync, delayBeforeSync, pipelines, serializer, keySerializer, valueSerializer, metrics, flushPolicy, pipelineManager, nodes);
+        this.scanCount = null == scanCount ? ScanIterator.DEFAULT_SCAN_COUNT : scanCount;
+        this.chunkSize = null == chunkSize ? ChunkedRead.DEFAULT_CHUNK_SIZE : chunkSize;
+        this.invalidationChannel = SafeEncoder.encode(InvalidationListener.CHANNEL_PREFIX + name);
+        if (null == buckets || buckets <= 1) {
+            this.hashes = new byte[][]{SafeEncoder.encode(name)};
+        } else {
+            this.hashes = new byte[buckets][];
+            boolean tagged = name.indexOf('{') >= 0 || name.indexOf('}') >= 0;
+            for (int i = 0; i < buckets; i++) {
+                this.hashes[i] = SafeEncoder.encode(tagged ? name + ":" + i : "{" + name + ":" + i + "}");
+            }
+        }
+        if (null != nearCacheSize) {
+            this.nearCache = new NearCache<>(nearCacheSize, null == nearCacheTtl ? 0 : nearCacheTtl);
+            this.invalidationHandler = new InvalidationHandler();
+        } else {
+            this.nearCache = null;
+            this.invalidationHandler = null;
+        }
+        if (null != publishInvalidations) {
+            this.publishInvalidations = publishInvalidations;
+        } else {
+            this.publishInvalidations = null != nearCache;
+        }
+        this.writeBuffer = null != writeBehind && writeBehind ? new MapWriteBuffer() : null;
+    }
+
+    /**
+     * Stop listening invalidation messages (near cache is no longer filled
+     * until the next read). Maps that are not closed stop listening when they
+     * are garbage collected or when their factory is closed.
+     */
+    public void close() {
+        List<InvalidationListener> listeners = invalidationListeners;
+        if (null != listeners) {
+            invalidationListeners = null;
+            for (InvalidationListener listener : listeners) {
+                listener.unregister(SafeEncoder.encode(invalidationChannel), invalidationHandler);
+            }
+        }
     }
 
     /**
@@ -40,16 +184,37 @@ public class RedisMap<K, V> extends RedisObject<K, V> implements Map<K, V> {
      */
     @Override
     public int size() {
-        return run(new Work<Integer>() {
+        final AtomicInteger size = new AtomicInteger();
+        List<Runnable> tasks = new ArrayList<>();
+        for (final Map.Entry<PipelineManager, List<byte[]>> group : hashesByManager().entrySet()) {
+            tasks.add(new Runnable() {
+
+                @Override
+                public void run() {
+                    size.addAndGet(size(group.getKey(), group.getValue()));
+                }
+            });
+        }
+        PipelineManager.inParallel(tasks);
+        return size.get();
+    }
+
+    /**
+     * Size of the hashes served by a node.
+     */
+    private int size(PipelineManager manager, final List<byte[]> names) {
+        return run(manager, new Work<Integer>() {
 
             @Override
             public Integer work(Jedis jedis) {
-                Long l = jedis.hlen(name);
-                if (null == l) {
-                    return 0;
-                } else {
-                    return l.intValue();
+                if (1 == names.size()) {
+                    Long l = jedis.hlen(names.get(0));
+                    return null == l ? 0 : l.intValue();
                 }
+                Pipeline pipeline = jedis.pipelined();
+                List<Response<Long>> lengths = hlen(pipeline, names);
+                pipeline.sync();
+                return sum(lengths);
             }
         });
     }
@@ -67,12 +232,13 @@ public class RedisMap<K, V> extends RedisObject<K, V> implements Map<K, V> {
      */
     @Override
     public boolean containsKey(final Object key) {
-        return run(new Work<Boolean>() {
+        return run(managerOfKey((K) key), new Work<Boolean>() {
 
             @Override
             public Boolean work(Jedis jedis) {
                 try {
-                    Boolean exists = jedis.hexists(SafeEncoder.encode(name), keyToBytes((K) key));
+                    byte[] bskey = keyToBytes((K) key);
+                    Boolean exists = jedis.hexists(hashOf(bskey), bskey);
                     if (null == exists) {
                         return false;
                     }
@@ -89,21 +255,7 @@ public class RedisMap<K, V> extends RedisObject<K, V> implements Map<K, V> {
      */
     @Override
     public boolean containsValue(final Object value) {
-        return run(new Work<Boolean>() {
-
-            @Override
-            public Boolean work(Jedis jedis) {
-                try {
-                    Set<byte[]> res = jedis.hkeys(SafeEncoder.encode(name));
-                    if (null == res) {
-                        return false;
-                    }
-                    return res.contains(valueToBytes((V) value));
-                } catch (IOException ex) {
-                    throw new RedisobjectsException(ex);
-                }
-            }
-        });
+        return values().contains(value);
     }
 
     /**
@@ -111,12 +263,27 @@ public class RedisMap<K, V> extends RedisObject<K, V> implements Map<K, V> {
      */
     @Override
     public V get(final Object key) {
-        return run(new Work<V>() {
+        if (null == nearCache) {
+            return load(key);
+        }
+        NearCache.Entry<V> entry = nearCache.get((K) key);
+        if (null != entry) {
+            return entry.getValue();
+        }
+        long generation = nearCache.generation();
+        V value = load(key);
+        cache((K) key, value, generation);
+        return value;
+    }
+
+    private V load(final Object key) {
+        return run(managerOfKey((K) key), new Work<V>() {
 
             @Override
             public V work(Jedis jedis) {
                 try {
-                    byte[] bytes = jedis.hget(SafeEncoder.encode(name), keyToBytes((K) key));
+                    byte[] bskey = keyToBytes((K) key);
+                    byte[] bytes = jedis.hget(hashOf(bskey), bskey);
                     if (null == bytes) {
                         return null;
                     }
@@ -129,7 +296,8 @@ public class RedisMap<K, V> extends RedisObject<K, V> implements Map<K, V> {
     }
 
     /**
-     * Put object for key (WARNING: always returning null).
+     * Put object for key (WARNING: always returning null, the previous object
+     * is returned by {@link Async#getAndPut} without blocking).
      *
      * @param key key
      * @param value object
@@ -137,40 +305,60 @@ public class RedisMap<K, V> extends RedisObject<K, V> implements Map<K, V> {
      */
     @Override
     public V put(final K key, final V value) {
-        return pipelined(new PipelinedWork<V>() {
+        if (null != writeBuffer) {
+            writeBuffer.put(key, value);
+            invalidate(key);
+            return null;
+        }
+        pipelined(managerOfKey(key), new PipelinedWork<V>() {
 
             @Override
             public V work(Pipeline pipeline) {
                 try {
-                    pipeline.hset(SafeEncoder.encode(name), keyToBytes((K) key), valueToBytes((V) value));
+                    hset(pipeline, key, value);
                     return null;
                 } catch (IOException ex) {
                     throw new RedisobjectsException(ex);
                 }
             }
         });
+        invalidate(key);
+        return null;
     }
 
     /**
-     * Remove object stored with the key (WARNING: always returning null).
+     * Remove object stored with the key (WARNING: always returning null, the
+     * removed object is returned by {@link Async#getAndRemove} without
+     * blocking).
      *
      * @param key key
      * @return null
      */
     @Override
     public V remove(final Object key) {
-        return pipelined(new PipelinedWork<V>() {
+        if (null != writeBuffer) {
+            writeBuffer.remove((K) key);
+            invalidate((K) key);
+            return null;
+        }
+        try {
+            remove((K) key, keyToBytes((K) key));
+            return null;
+        } catch (IOException ex) {
+            throw new RedisobjectsException(ex);
+        }
+    }
+
+    private void remove(final K key, final byte[] bskey) {
+        pipelined(managerOf(hashOf(bskey)), new PipelinedWork<Boolean>() {
 
             @Override
-            public V work(Pipeline pipeline) {
-                try {
-                    pipeline.hdel(SafeEncoder.encode(name), keyToBytes((K) key));
-                    return null;
-                } catch (IOException ex) {
-                    throw new RedisobjectsException(ex);
-                }
+            public Boolean work(Pipeline pipeline) {
+                hdel(pipeline, bskey);
+                return true;
             }
         });
+        invalidate(key);
     }
 
     /**
@@ -178,24 +366,28 @@ public class RedisMap<K, V> extends RedisObject<K, V> implements Map<K, V> {
      */
     @Override
     public void putAll(final Map<? extends K, ? extends V> m) {
-        pipelined(new PipelinedWork<Boolean>() {
+        if (null != writeBuffer) {
+            for (Map.Entry<? extends K, ? extends V> en : m.entrySet()) {
+                writeBuffer.put(en.getKey(), en.getValue());
+            }
+            invalidate(m.keySet());
+            return;
+        }
+        for (final Map.Entry<PipelineManager, Map<K, V>> group : entriesByManager(m).entrySet()) {
+            pipelined(group.getKey(), new PipelinedWork<Boolean>() {
 
-            @Override
-            public Boolean work(Pipeline pipeline) {
-                try {
-                    Map<byte[], byte[]> map = new HashMap<>();
-                    for (java.util.Map.Entry<? extends K, ? extends V> en : m.entrySet()) {
-                        Object key = en.getKey();
-                        Object val = en.getValue();
-                        map.put(keyToBytes((K) key), valueToBytes((V) val));
+                @Override
+                public Boolean work(Pipeline pipeline) {
+                    try {
+                        hmset(pipeline, group.getValue());
+                        return true;
+                    } catch (IOException ex) {
+                        throw new RedisobjectsException(ex);
                     }
-                    pipeline.hmset(SafeEncoder.encode(name), map);
-                    return true;
-                } catch (IOException ex) {
-                    throw new RedisobjectsException(ex);
                 }
-            }
-        });
+            });
+        }
+        invalidate(m.keySet());
     }
 
     /**
@@ -203,115 +395,1056 @@ public class RedisMap<K, V> extends RedisObject<K, V> implements Map<K, V> {
      */
     @Override
     public void clear() {
-        pipelined(new PipelinedWork<Boolean>() {
+        if (null != writeBuffer) {
+            writeBuffer.clear();
+            invalidateAll();
+            return;
+        }
+        for (final Map.Entry<PipelineManager, List<byte[]>> group : hashesByManager().entrySet()) {
+            pipelined(group.getKey(), new PipelinedWork<Boolean>() {
 
-            @Override
-            public Boolean work(Pipeline pipeline) {
-                pipeline.del(SafeEncoder.encode(name));
-                return true;
-            }
-        });
+                @Override
+                public Boolean work(Pipeline pipeline) {
+                    del(pipeline, group.getValue());
+                    return true;
+                }
+            });
+        }
+        invalidateAll();
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
+    protected void flushWrites() {
+        if (null != writeBuffer) {
+            writeBuffer.flush();
+        }
+    }
+
+    /**
+     * Asynchronous view of the map: commands are sent with the write pipeline
+     * and futures are completed when it is synced.
+     *
+     * @return asynchronous view
+     */
+    public Async async() {
+        return async;
+    }
+
+    /**
+     * Live view of the keys, iterated with HSCAN.
+     *
+     * @return keys
+     */
+    @Override
     public Set<K> keySet() {
-        return run(new Work<Set<K>>() {
+        return new AbstractSet<K>() {
 
             @Override
-            public Set<K> work(Jedis jedis) {
-                try {
-                    Set<K> set = new HashSet<>();
-                    Set<byte[]> res = jedis.hkeys(SafeEncoder.encode(name));
-                    for (byte[] bytes : res) {
-                        set.add(bytesToKey(bytes));
+            public Iterator<K> iterator() {
+                return new HashScanIterator<K>() {
+
+                    @Override
+                    protected K convert(Entry<byte[], byte[]> raw) throws IOException, ClassNotFoundException {
+                        return bytesToKey(raw.getKey());
                     }
-                    return set;
-                } catch (IOException | ClassNotFoundException ex) {
-                    throw new RedisobjectsException(ex);
-                }
+                };
             }
-        });
+
+            @Override
+            public int size() {
+                return RedisMap.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public void clear() {
+                RedisMap.this.clear();
+            }
+        };
     }
 
     /**
-     * {@inheritDoc}
+     * Live view of the values, iterated with HSCAN.
+     *
+     * @return values
      */
     @Override
     public Collection<V> values() {
-        return run(new Work<List<V>>() {
+        return new AbstractCollection<V>() {
 
             @Override
-            public List<V> work(Jedis jedis) {
-                try {
-                    List<V> list = new ArrayList<>();
-                    List<byte[]> res = jedis.hvals(SafeEncoder.encode(name));
-                    for (byte[] bytes : res) {
-                        list.add(bytesToValue(bytes));
+            public Iterator<V> iterator() {
+                return new HashScanIterator<V>() {
+
+                    @Override
+                    protected V convert(Entry<byte[], byte[]> raw) throws IOException, ClassNotFoundException {
+                        return bytesToValue(raw.getValue());
                     }
-                    return list;
-                } catch (IOException | ClassNotFoundException ex) {
-                    throw new RedisobjectsException(ex);
-                }
+                };
             }
-        });
+
+            @Override
+            public int size() {
+                return RedisMap.this.size();
+            }
+
+            @Override
+            public void clear() {
+                RedisMap.this.clear();
+            }
+        };
     }
 
     /**
      * Get values for keys.
      *
      * @param keys keys
-     * @return values
+     * @return values (null for keys not found)
      */
     public Collection<V> values(final Collection<K> keys) {
-        return run(new Work<List<V>>() {
+        Map<K, V> values = getAll(keys);
+        List<V> list = new ArrayList<>();
+        for (K key : keys) {
+            list.add(values.get(key));
+        }
+        return list;
+    }
+
+    /**
+     * Get objects for keys with HMGET, in chunks sent over one connection.
+     *
+     * @param keys keys
+     * @return found objects by key
+     */
+    public Map<K, V> getAll(final Collection<K> keys) {
+        final Map<K, V> values = new LinkedHashMap<>();
+        List<K> missing = new ArrayList<>();
+        for (K key : keys) {
+            NearCache.Entry<V> entry = null == nearCache ? null : nearCache.get(key);
+            if (null == entry) {
+                missing.add(key);
+            } else if (null != entry.getValue()) {
+                values.put(key, entry.getValue());
+            }
+        }
+        final long generation = null == nearCache ? 0 : nearCache.generation();
+        Map<PipelineManager, List<Integer>> groups = positionsByManager(missing);
+        if (1 == groups.size()) {
+            Map.Entry<PipelineManager, List<Integer>> group = groups.entrySet().iterator().next();
+            getAll(group.getKey(), null == group.getValue() ? missing : at(missing, group.getValue()), values, generation);
+            return values;
+        }
+        // nodes are read in parallel, each in its own map
+        final List<Map<K, V>> results = new ArrayList<>();
+        List<Runnable> tasks = new ArrayList<>();
+        for (final Map.Entry<PipelineManager, List<Integer>> group : groups.entrySet()) {
+            final List<K> chunk = at(missing, group.getValue());
+            final Map<K, V> result = new LinkedHashMap<>();
+            results.add(result);
+            tasks.add(new Runnable() {
+
+                @Override
+                public void run() {
+                    getAll(group.getKey(), chunk, result, generation);
+                }
+            });
+        }
+        PipelineManager.inParallel(tasks);
+        for (Map<K, V> result : results) {
+            values.putAll(result);
+        }
+        return values;
+    }
+
+    /**
+     * Get objects served by a node.
+     */
+    private void getAll(PipelineManager manager, List<K> keys, final Map<K, V> values, final long generation) {
+        run(manager, new ChunkedRead<K>(keys, chunkSize) {
+
+            /**
+             * Positions of the keys of each HMGET sent and not yet read.
+             */
+            private final Queue<Collection<List<Integer>>> sent = new ArrayDeque<>();
 
             @Override
-            public List<V> work(Jedis jedis) {
-                try {
-                    List<V> list = new ArrayList<>();
-                    byte[][] safeKeys = new byte[keys.size()][];
-                    int i = 0;
-                    for (K key : keys) {
-                        safeKeys[i] = keyToBytes((K) key);
-                        i++;
-                    }
-                    List<byte[]> res = jedis.hmget(SafeEncoder.encode(name), safeKeys);
-                    for (byte[] bytes : res) {
-                        list.add(bytesToValue(bytes));
+            public Boolean work(Jedis jedis) {
+                // an attempt redirected to another node starts from the first chunk
+                sent.clear();
+                return super.work(jedis);
+            }
+
+            @Override
+            protected void send(Client client, List<K> chunk) throws IOException {
+                byte[][] fields = new byte[chunk.size()][];
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i] = keyToBytes(chunk.get(i));
+                }
+                Map<byte[], List<Integer>> groups = groupByHash(fields);
+                for (Map.Entry<byte[], List<Integer>> group : groups.entrySet()) {
+                    client.hmget(group.getKey(), fieldsAt(fields, group.getValue()));
+                }
+                sent.add(groups.values());
+            }
+
+            @Override
+            protected boolean receive(Client client, List<K> chunk) throws IOException, ClassNotFoundException {
+                for (List<Integer> positions : sent.poll()) {
+                    List<byte[]> res = client.getBinaryMultiBulkReply();
+                    for (int i = 0; i < positions.size(); i++) {
+                        K key = chunk.get(positions.get(i));
+                        byte[] bytes = res.get(i);
+                        V value = null == bytes ? null : bytesToValue(bytes);
+                        if (null != value) {
+                            values.put(key, value);
+                        }
+                        if (null != nearCache) {
+                            cache(key, value, generation);
+                        }
                     }
-                    return list;
-                } catch (IOException | ClassNotFoundException ex) {
-                    throw new RedisobjectsException(ex);
                 }
+                return true;
             }
         });
     }
 
     /**
-     * {@inheritDoc}
+     * Live view of the entries, iterated with HSCAN (setting the value of an
+     * entry puts it in the map).
+     *
+     * @return entries
      */
     @Override
     public Set<Entry<K, V>> entrySet() {
-        return run(new Work<Set<Entry<K, V>>>() {
+        return new AbstractSet<Entry<K, V>>() {
 
             @Override
-            public Set<Entry<K, V>> work(Jedis jedis) {
-                try {
-                    Set<Entry<K, V>> set = new HashSet<>();
-                    Map<byte[], byte[]> res = jedis.hgetAll(SafeEncoder.encode(name));
-                    for (Entry<byte[], byte[]> entry : res.entrySet()) {
-                        byte[] bskey = entry.getKey();
-                        byte[] bsval = entry.getValue();
-                        set.add(new AbstractMap.SimpleEntry(bytesToKey(bskey), bytesToValue(bsval)));
+            public Iterator<Entry<K, V>> iterator() {
+                return new HashScanIterator<Entry<K, V>>() {
+
+                    @Override
+                    protected Entry<K, V> convert(Entry<byte[], byte[]> raw) throws IOException, ClassNotFoundException {
+                        return new WriteThroughEntry(bytesToKey(raw.getKey()), bytesToValue(raw.getValue()));
                     }
-                    return set;
-                } catch (IOException | ClassNotFoundException ex) {
-                    throw new RedisobjectsException(ex);
+                };
+            }
+
+            @Override
+            public int size() {
+                return RedisMap.this.size();
+            }
+
+            @Override
+            public void clear() {
+                RedisMap.this.clear();
+            }
+        };
+    }
+
+    /**
+     * HSCAN iterator, removing fields with pipelined HDEL.
+     *
+     * @param <T>
+     */
+    private abstract class HashScanIterator<T> extends ScanIterator<Entry<byte[], byte[]>, T> {
+
+        /**
+         * Index of the hash scanned.
+         */
+        private int hash = 0;
+
+        HashScanIterator() {
+            super(RedisMap.this, scanCount);
+        }
+
+        @Override
+        protected ScanResult<Entry<byte[], byte[]>> scan(Jedis jedis, byte[] cursor, ScanParams params) {
+            return jedis.hscan(hashes[hash], cursor, params);
+        }
+
+        @Override
+        protected boolean nextKey() {
+            return ++hash < hashes.length;
+        }
+
+        @Override
+        protected PipelineManager manager() {
+            return managerOf(hashes[hash]);
+        }
+
+        @Override
+        protected void remove(Entry<byte[], byte[]> raw) {
+            try {
+                K key = null == nearCache ? null : bytesToKey(raw.getKey());
+                RedisMap.this.remove(key, raw.getKey());
+            } catch (IOException | ClassNotFoundException ex) {
+                throw new RedisobjectsException(ex);
+            }
+        }
+    }
+
+    /**
+     * Entry writing its value through the map.
+     */
+    private class WriteThroughEntry extends AbstractMap.SimpleEntry<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        WriteThroughEntry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+    private Response<Long> hset(Pipeline pipeline, K key, V value) throws IOException {
+        byte[] bskey = keyToBytes(key);
+        Response<Long> res = pipeline.hset(hashOf(bskey), bskey, valueToBytes(value));
+        publishInvalidation(pipeline, bskey);
+        return res;
+    }
+
+    private Response<Long> hdel(Pipeline pipeline, byte[] bskey) {
+        Response<Long> res = pipeline.hdel(hashOf(bskey), bskey);
+        publishInvalidation(pipeline, bskey);
+        return res;
+    }
+
+    private List<Response<String>> hmset(Pipeline pipeline, Map<? extends K, ? extends V> m) throws IOException {
+        Map<byte[], Map<byte[], byte[]>> maps = new LinkedHashMap<>();
+        for (java.util.Map.Entry<? extends K, ? extends V> en : m.entrySet()) {
+            byte[] bskey = keyToBytes(en.getKey());
+            Map<byte[], byte[]> map = maps.get(hashOf(bskey));
+            if (null == map) {
+                map = new HashMap<>();
+                maps.put(hashOf(bskey), map);
+            }
+            map.put(bskey, valueToBytes(en.getValue()));
+        }
+        List<Response<String>> res = new ArrayList<>();
+        for (Map.Entry<byte[], Map<byte[], byte[]>> en : maps.entrySet()) {
+            res.add(pipeline.hmset(en.getKey(), en.getValue()));
+            for (byte[] bskey : en.getValue().keySet()) {
+                publishInvalidation(pipeline, bskey);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Delete hashes, with one DEL per hash on nodes (hashes of a bucketed map
+     * are in different slots).
+     */
+    private List<Response<Long>> del(Pipeline pipeline, List<byte[]> names) {
+        List<Response<Long>> res = new ArrayList<>();
+        if (null == nodes) {
+            res.add(pipeline.del(names.toArray(new byte[names.size()][])));
+        } else {
+            for (byte[] hash : names) {
+                res.add(pipeline.del(hash));
+            }
+        }
+        publishInvalidation(pipeline, new byte[0]);
+        return res;
+    }
+
+    private List<Response<Long>> hlen(Pipeline pipeline, List<byte[]> names) {
+        List<Response<Long>> res = new ArrayList<>();
+        for (byte[] hash : names) {
+            res.add(pipeline.hlen(hash));
+        }
+        return res;
+    }
+
+    private static int sum(List<Response<Long>> lengths) {
+        long size = 0;
+        for (Response<Long> length : lengths) {
+            Long l = length.get();
+            size += null == l ? 0 : l;
+        }
+        return (int) size;
+    }
+
+    /**
+     * Hash of a serialized key.
+     *
+     * @param bskey serialized key
+     * @return name of the hash in Redis
+     */
+    private byte[] hashOf(byte[] bskey) {
+        if (1 == hashes.length) {
+            return hashes[0];
+        }
+        return hashes[Math.floorMod(Arrays.hashCode(bskey), hashes.length)];
+    }
+
+    /**
+     * Group serialized keys by hash.
+     *
+     * @param fields serialized keys
+     * @return positions of the keys by hash
+     */
+    private Map<byte[], List<Integer>> groupByHash(byte[][] fields) {
+        Map<byte[], List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < fields.length; i++) {
+            List<Integer> positions = groups.get(hashOf(fields[i]));
+            if (null == positions) {
+                positions = new ArrayList<>();
+                groups.put(hashOf(fields[i]), positions);
+            }
+            positions.add(i);
+        }
+        return groups;
+    }
+
+    private static byte[][] fieldsAt(byte[][] fields, List<Integer> positions) {
+        if (positions.size() == fields.length) {
+            return fields;
+        }
+        byte[][] res = new byte[positions.size()][];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = fields[positions.get(i)];
+        }
+        return res;
+    }
+
+    private static <T> List<T> at(List<T> list, List<Integer> positions) {
+        List<T> res = new ArrayList<>(positions.size());
+        for (int position : positions) {
+            res.add(list.get(position));
+        }
+        return res;
+    }
+
+    /**
+     * Test if the hashes are spread over several nodes.
+     */
+    private boolean routed() {
+        return null != nodes && hashes.length > 1;
+    }
+
+    /**
+     * Pipeline manager of the node serving a hash.
+     *
+     * @param hash name of the hash in Redis
+     * @return pipeline manager
+     */
+    private PipelineManager managerOf(byte[] hash) {
+        return routed() ? managerOf(SafeEncoder.encode(hash)) : managerOf(name);
+    }
+
+    /**
+     * Pipeline manager of the node serving a key (the key is serialized only
+     * if the hashes are spread over several nodes).
+     *
+     * @param key key
+     * @return pipeline manager
+     */
+    private PipelineManager managerOfKey(K key) {
+        if (!routed()) {
+            return managerOf(name);
+        }
+        try {
+            return managerOf(hashOf(keyToBytes(key)));
+        } catch (IOException ex) {
+            throw new RedisobjectsException(ex);
+        }
+    }
+
+    /**
+     * Group all the hashes by node.
+     *
+     * @return hashes by pipeline manager of their node
+     */
+    private Map<PipelineManager, List<byte[]>> hashesByManager() {
+        if (!routed()) {
+            return Collections.singletonMap(managerOf(name), Arrays.asList(hashes));
+        }
+        Map<PipelineManager, List<byte[]>> groups = new LinkedHashMap<>();
+        for (byte[] hash : hashes) {
+            List<byte[]> group = groups.get(managerOf(hash));
+            if (null == group) {
+                group = new ArrayList<>();
+                groups.put(managerOf(hash), group);
+            }
+            group.add(hash);
+        }
+        return groups;
+    }
+
+    /**
+     * Group keys by node.
+     *
+     * @param keys keys
+     * @return positions of the keys by pipeline manager of their node (null
+     * for all the keys)
+     */
+    private Map<PipelineManager, List<Integer>> positionsByManager(List<? extends K> keys) {
+        if (!routed()) {
+            return Collections.singletonMap(managerOf(name), null);
+        }
+        Map<PipelineManager, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            PipelineManager manager = managerOfKey(keys.get(i));
+            List<Integer> positions = groups.get(manager);
+            if (null == positions) {
+                positions = new ArrayList<>();
+                groups.put(manager, positions);
+            }
+            positions.add(i);
+        }
+        return groups;
+    }
+
+    /**
+     * Group entries by node.
+     *
+     * @param m entries
+     * @return entries by pipeline manager of the node of their key
+     */
+    private Map<PipelineManager, Map<K, V>> entriesByManager(Map<? extends K, ? extends V> m) {
+        if (!routed()) {
+            return Collections.singletonMap(managerOf(name), (Map<K, V>) m);
+        }
+        Map<PipelineManager, Map<K, V>> groups = new LinkedHashMap<>();
+        for (Map.Entry<? extends K, ? extends V> en : m.entrySet()) {
+            PipelineManager manager = managerOfKey(en.getKey());
+            Map<K, V> group = groups.get(manager);
+            if (null == group) {
+                group = new LinkedHashMap<>();
+                groups.put(manager, group);
+            }
+            group.put(en.getKey(), en.getValue());
+        }
+        return groups;
+    }
+
+    /**
+     * Wait for futures of several nodes.
+     */
+    private static CompletableFuture<Void> allOf(List<CompletableFuture<Void>> futures) {
+        if (1 == futures.size()) {
+            return futures.get(0);
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]));
+    }
+
+    /**
+     * Write-behind buffer sending held writes with DEL, HDEL and HMSET.
+     */
+    private class MapWriteBuffer extends WriteBuffer<K, V> {
+
+        MapWriteBuffer() {
+            super(RedisMap.this);
+        }
+
+        @Override
+        protected void write(Pipeline pipeline, boolean cleared, Map<K, V> puts, List<K> removes) throws IOException {
+            write(pipeline, cleared ? Arrays.asList(hashes) : null, puts, removes);
+        }
+
+        /**
+         * Send the writes of each node with its pipeline manager.
+         */
+        @Override
+        protected void send(boolean cleared, final Map<K, V> puts, final List<K> removes) throws IOException {
+            if (!routed()) {
+                super.send(cleared, puts, removes);
+                return;
+            }
+            final Map<PipelineManager, List<byte[]>> dels = cleared ? hashesByManager() : Collections.<PipelineManager, List<byte[]>>emptyMap();
+            final Map<PipelineManager, Map<K, V>> hmsets = entriesByManager(puts);
+            final Map<PipelineManager, List<Integer>> hdels = positionsByManager(removes);
+            Set<PipelineManager> managers = new LinkedHashSet<>(dels.keySet());
+            managers.addAll(hmsets.keySet());
+            managers.addAll(hdels.keySet());
+            for (final PipelineManager manager : managers) {
+                pipe(manager, new PipelinedWork<Boolean>() {
+
+                    @Override
+                    public Boolean work(Pipeline pipeline) {
+                        try {
+                            Map<K, V> put = hmsets.get(manager);
+                            List<Integer> removed = hdels.get(manager);
+                            write(pipeline, dels.get(manager), null == put ? Collections.<K, V>emptyMap() : put,
+                                    null == removed ? Collections.<K>emptyList() : at(removes, removed));
+                            return true;
+                        } catch (IOException ex) {
+                            throw new RedisobjectsException(ex);
+                        }
+                    }
+                });
+            }
+        }
+
+        private void write(Pipeline pipeline, List<byte[]> cleared, Map<K, V> puts, List<K> removes) throws IOException {
+            if (null != cleared) {
+                del(pipeline, cleared);
+            }
+            if (!removes.isEmpty()) {
+                byte[][] fields = new byte[removes.size()][];
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i] = keyToBytes(removes.get(i));
+                }
+                for (Map.Entry<byte[], List<Integer>> group : groupByHash(fields).entrySet()) {
+                    pipeline.hdel(group.getKey(), fieldsAt(fields, group.getValue()));
+                }
+                for (byte[] bskey : fields) {
+                    publishInvalidation(pipeline, bskey);
                 }
             }
-        });
+            if (!puts.isEmpty()) {
+                hmset(pipeline, puts);
+            }
+        }
+    }
+
+    /**
+     * Cache a loaded value if invalidation messages are received (the
+     * listeners of the pools are started by the first value loaded).
+     */
+    private void cache(K key, V value, long generation) {
+        List<InvalidationListener> listeners = invalidationListeners;
+        if (null == listeners) {
+            listeners = new ArrayList<>();
+            for (JedisPool pool : publishingPools()) {
+                InvalidationListener listener = InvalidationListener.of(pool);
+                listener.register(SafeEncoder.encode(invalidationChannel), invalidationHandler);
+                listeners.add(listener);
+            }
+            invalidationListeners = listeners;
+        }
+        for (InvalidationListener listener : listeners) {
+            if (!listener.isSubscribed()) {
+                return;
+            }
+        }
+        nearCache.put(key, value, generation);
+    }
+
+    /**
+     * Pools invalidation messages are published on: invalidations are sent in
+     * the pipeline of the hash written, so that they follow the write, and
+     * standalone shards do not forward them to each other.
+     *
+     * @return pools
+     */
+    private Set<JedisPool> publishingPools() {
+        if (!routed() || nodes.forwardsMessages()) {
+            return Collections.singleton(jedisPool);
+        }
+        Set<JedisPool> pools = new LinkedHashSet<>();
+        for (byte[] hash : hashes) {
+            pools.add(nodes.getPool(SafeEncoder.encode(hash)));
+        }
+        return pools;
+    }
+
+    private void invalidate(K key) {
+        if (null != nearCache) {
+            nearCache.invalidate(key);
+        }
+    }
+
+    private void invalidate(Collection<? extends K> keys) {
+        if (null != nearCache) {
+            for (K key : keys) {
+                nearCache.invalidate(key);
+            }
+        }
+    }
+
+    private void invalidateAll() {
+        if (null != nearCache) {
+            nearCache.invalidateAll();
+        }
+    }
+
+    /**
+     * Publish invalidation message for the serialized key (empty key
+     * invalidates all keys).
+     *
+     * @param pipeline pipeline
+     * @param bskey serialized key
+     */
+    private void publishInvalidation(Pipeline pipeline, byte[] bskey) {
+        if (publishInvalidations) {
+            pipeline.publish(invalidationChannel, bskey);
+        }
+    }
+
+    /**
+     * Handler of invalidation messages keeping near cache coherent.
+     */
+    private class InvalidationHandler implements InvalidationListener.Handler {
+
+        @Override
+        public void invalidate(byte[] message) {
+            if (0 == message.length) {
+                nearCache.invalidateAll();
+                return;
+            }
+            try {
+                nearCache.invalidate(bytesToKey(message));
+            } catch (IOException | ClassNotFoundException ex) {
+                nearCache.invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * Asynchronous operations of the map.
+     */
+    public class Async {
+
+        /**
+         * Get object for key.
+         *
+         * @param key key
+         * @return future of the object (null if not found)
+         */
+        public CompletableFuture<V> get(final K key) {
+            if (null != nearCache) {
+                NearCache.Entry<V> entry = nearCache.get(key);
+                if (null != entry) {
+                    return CompletableFuture.completedFuture(entry.getValue());
+                }
+            }
+            final long generation = null == nearCache ? 0 : nearCache.generation();
+            return pipelinedAsync(managerOfKey(key), new AsyncWork<Response<byte[]>, V>() {
+
+                @Override
+                public Response<byte[]> work(Pipeline pipeline) {
+                    try {
+                        byte[] bskey = keyToBytes(key);
+                        return pipeline.hget(hashOf(bskey), bskey);
+                    } catch (IOException ex) {
+                        throw new RedisobjectsException(ex);
+                    }
+                }
+
+                @Override
+                public V result(Response<byte[]> responses) throws IOException, ClassNotFoundException {
+                    byte[] bytes = responses.get();
+                    V value = null == bytes ? null : bytesToValue(bytes);
+                    if (null != nearCache) {
+                        cache(key, value, generation);
+                    }
+                    return value;
+                }
+            });
+        }
+
+        /**
+         * Test if key exists.
+         *
+         * @param key key
+         * @return future of the test
+         */
+        public CompletableFuture<Boolean> containsKey(final K key) {
+            return pipelinedAsync(managerOfKey(key), new AsyncWork<Response<Boolean>, Boolean>() {
+
+                @Override
+                public Response<Boolean> work(Pipeline pipeline) {
+                    try {
+                        byte[] bskey = keyToBytes(key);
+                        return pipeline.hexists(hashOf(bskey), bskey);
+                    } catch (IOException ex) {
+                        throw new RedisobjectsException(ex);
+                    }
+                }
+
+                @Override
+                public Boolean result(Response<Boolean> responses) {
+                    return Boolean.TRUE.equals(responses.get());
+                }
+            });
+        }
+
+        /**
+         * Size of the map.
+         *
+         * @return future of the size
+         */
+        public CompletableFuture<Integer> size() {
+            CompletableFuture<Integer> size = CompletableFuture.completedFuture(0);
+            for (final Map.Entry<PipelineManager, List<byte[]>> group : hashesByManager().entrySet()) {
+                size = size.thenCombine(pipelinedAsync(group.getKey(), new AsyncWork<List<Response<Long>>, Integer>() {
+
+                    @Override
+                    public List<Response<Long>> work(Pipeline pipeline) {
+                        return hlen(pipeline, group.getValue());
+                    }
+
+                    @Override
+                    public Integer result(List<Response<Long>> responses) {
+                        return sum(responses);
+                    }
+                }), new BiFunction<Integer, Integer, Integer>() {
+
+                    @Override
+                    public Integer apply(Integer a, Integer b) {
+                        return a + b;
+                    }
+                });
+            }
+            return size;
+        }
+
+        /**
+         * Get values for keys.
+         *
+         * @param keys keys
+         * @return future of the values (null for keys not found)
+         */
+        public CompletableFuture<List<V>> values(final Collection<K> keys) {
+            final List<K> list = new ArrayList<>(keys);
+            final List<V> values = new ArrayList<>(Collections.<V>nCopies(list.size(), null));
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (Map.Entry<PipelineManager, List<Integer>> group : positionsByManager(list).entrySet()) {
+                final List<Integer> positions = group.getValue();
+                final List<K> chunk = null == positions ? list : at(list, positions);
+                futures.add(pipelinedAsync(group.getKey(), new AsyncWork<Map<Response<List<byte[]>>, List<Integer>>, Void>() {
+
+                    @Override
+                    public Map<Response<List<byte[]>>, List<Integer>> work(Pipeline pipeline) {
+                        Map<Response<List<byte[]>>, List<Integer>> groups = new LinkedHashMap<>();
+                        try {
+                            byte[][] safeKeys = new byte[chunk.size()][];
+                            for (int i = 0; i < safeKeys.length; i++) {
+                                safeKeys[i] = keyToBytes(chunk.get(i));
+                            }
+                            for (Map.Entry<byte[], List<Integer>> hash : groupByHash(safeKeys).entrySet()) {
+                                groups.put(pipeline.hmget(hash.getKey(), fieldsAt(safeKeys, hash.getValue())), hash.getValue());
+                            }
+                            return groups;
+                        } catch (IOException ex) {
+                            throw new RedisobjectsException(ex);
+                        }
+                    }
+
+                    @Override
+                    public Void result(Map<Response<List<byte[]>>, List<Integer>> responses) throws IOException, ClassNotFoundException {
+                        for (Map.Entry<Response<List<byte[]>>, List<Integer>> en : responses.entrySet()) {
+                            List<byte[]> res = en.getKey().get();
+                            for (int i = 0; i < res.size(); i++) {
+                                byte[] bytes = res.get(i);
+                                int position = en.getValue().get(i);
+                                values.set(null == positions ? position : positions.get(position), null == bytes ? null : bytesToValue(bytes));
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            return allOf(futures).thenApply(new Function<Void, List<V>>() {
+
+                @Override
+                public List<V> apply(Void v) {
+                    return values;
+                }
+            });
+        }
+
+        /**
+         * Put object for key.
+         *
+         * @param key key
+         * @param value object
+         * @return future completed when the object is stored
+         */
+        public CompletableFuture<Void> put(final K key, final V value) {
+            CompletableFuture<Void> future = pipelinedAsync(managerOfKey(key), new AsyncWork<Response<Long>, Void>() {
+
+                @Override
+                public Response<Long> work(Pipeline pipeline) {
+                    try {
+                        return hset(pipeline, key, value);
+                    } catch (IOException ex) {
+                        throw new RedisobjectsException(ex);
+                    }
+                }
+
+                @Override
+                public Void result(Response<Long> responses) {
+                    responses.get();
+                    return null;
+                }
+            });
+            invalidate(key);
+            return future;
+        }
+
+        /**
+         * Put object for key and get the object previously stored (HGET and
+         * HSET sent in a transaction of the pipeline).
+         *
+         * @param key key
+         * @param value object
+         * @return future of the previous object (null if none)
+         */
+        public CompletableFuture<V> getAndPut(final K key, final V value) {
+            CompletableFuture<V> future = pipelinedAsync(managerOfKey(key), new AsyncWork<Response<byte[]>, V>() {
+
+                @Override
+                public Response<byte[]> work(Pipeline pipeline) {
+                    try {
+                        byte[] bskey = keyToBytes(key);
+                        byte[] bsvalue = valueToBytes(value);
+                        pipeline.multi();
+                        Response<byte[]> previous = pipeline.hget(hashOf(bskey), bskey);
+                        pipeline.hset(hashOf(bskey), bskey, bsvalue);
+                        pipeline.exec();
+                        publishInvalidation(pipeline, bskey);
+                        return previous;
+                    } catch (IOException ex) {
+                        throw new RedisobjectsException(ex);
+                    }
+                }
+
+                @Override
+                public V result(Response<byte[]> responses) throws IOException, ClassNotFoundException {
+                    byte[] bytes = responses.get();
+                    return null == bytes ? null : bytesToValue(bytes);
+                }
+            });
+            invalidate(key);
+            return future;
+        }
+
+        /**
+         * Put objects.
+         *
+         * @param m objects
+         * @return future completed when the objects are stored
+         */
+        public CompletableFuture<Void> putAll(final Map<? extends K, ? extends V> m) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (final Map.Entry<PipelineManager, Map<K, V>> group : entriesByManager(m).entrySet()) {
+                futures.add(pipelinedAsync(group.getKey(), new AsyncWork<List<Response<String>>, Void>() {
+
+                    @Override
+                    public List<Response<String>> work(Pipeline pipeline) {
+                        try {
+                            return hmset(pipeline, group.getValue());
+                        } catch (IOException ex) {
+                            throw new RedisobjectsException(ex);
+                        }
+                    }
+
+                    @Override
+                    public Void result(List<Response<String>> responses) {
+                        for (Response<String> response : responses) {
+                            response.get();
+                        }
+                        return null;
+                    }
+                }));
+            }
+            invalidate(m.keySet());
+            return allOf(futures);
+        }
+
+        /**
+         * Remove object stored with the key.
+         *
+         * @param key key
+         * @return future of the removal (true if the key existed)
+         */
+        public CompletableFuture<Boolean> remove(final K key) {
+            CompletableFuture<Boolean> future = pipelinedAsync(managerOfKey(key), new AsyncWork<Response<Long>, Boolean>() {
+
+                @Override
+                public Response<Long> work(Pipeline pipeline) {
+                    try {
+                        return hdel(pipeline, keyToBytes(key));
+                    } catch (IOException ex) {
+                        throw new RedisobjectsException(ex);
+                    }
+                }
+
+                @Override
+                public Boolean result(Response<Long> responses) {
+                    Long l = responses.get();
+                    return null != l && l > 0;
+                }
+            });
+            invalidate(key);
+            return future;
+        }
+
+        /**
+         * Remove object stored with the key and get it (HGET and HDEL sent in
+         * a transaction of the pipeline).
+         *
+         * @param key key
+         * @return future of the removed object (null if none)
+         */
+        public CompletableFuture<V> getAndRemove(final K key) {
+            CompletableFuture<V> future = pipelinedAsync(managerOfKey(key), new AsyncWork<Response<byte[]>, V>() {
+
+                @Override
+                public Response<byte[]> work(Pipeline pipeline) {
+                    try {
+                        byte[] bskey = keyToBytes(key);
+                        pipeline.multi();
+                        Response<byte[]> previous = pipeline.hget(hashOf(bskey), bskey);
+                        pipeline.hdel(hashOf(bskey), bskey);
+                        pipeline.exec();
+                        publishInvalidation(pipeline, bskey);
+                        return previous;
+                    } catch (IOException ex) {
+                        throw new RedisobjectsException(ex);
+                    }
+                }
+
+                @Override
+                public V result(Response<byte[]> responses) throws IOException, ClassNotFoundException {
+                    byte[] bytes = responses.get();
+                    return null == bytes ? null : bytesToValue(bytes);
+                }
+            });
+            invalidate(key);
+            return future;
+        }
+
+        /**
+         * Remove all objects.
+         *
+         * @return future completed when the map is removed
+         */
+        public CompletableFuture<Void> clear() {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (final Map.Entry<PipelineManager, List<byte[]>> group : hashesByManager().entrySet()) {
+                futures.add(pipelinedAsync(group.getKey(), new AsyncWork<List<Response<Long>>, Void>() {
+
+                    @Override
+                    public List<Response<Long>> work(Pipeline pipeline) {
+                        return del(pipeline, group.getValue());
+                    }
+
+                    @Override
+                    public Void result(List<Response<Long>> responses) {
+                        for (Response<Long> response : responses) {
+                            response.get();
+                        }
+                        return null;
+                    }
+                }));
+            }
+            invalidateAll();
+            return allOf(futures);
+        }
     }
 }
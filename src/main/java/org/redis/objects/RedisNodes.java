@@ -0,0 +1,58 @@
+package org.redis.objects;
+
+import java.io.Closeable;
+import java.util.Collection;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+
+/**
+ * Redis nodes sharing the keys of Redis objects, each key being served by one
+ * node (Redis Cluster slots, client-side sharding).
+ *
+ * Objects built with nodes send the commands of a key to the pool of its node,
+ * with one pipeline manager per node.
+ *
+ * @author Mathieu MAST
+ */
+public interface RedisNodes extends Closeable {
+
+    /**
+     * Pool of the node serving a key.
+     *
+     * @param key key
+     * @return pool
+     */
+    JedisPool getPool(String key);
+
+    /**
+     * Pools of all the nodes.
+     *
+     * @return pools
+     */
+    Collection<JedisPool> getPools();
+
+    /**
+     * Handle the redirection of a command to another node.
+     *
+     * @param ex redirection (MOVED or ASK)
+     * @return pool of the node the command must be sent to
+     * @throws JedisRedirectionException if nodes do not redirect commands
+     */
+    JedisPool redirect(JedisRedirectionException ex);
+
+    /**
+     * Test if a message published on a node is received by the subscribers of
+     * all the nodes (otherwise subscribers listen to every node publishing).
+     *
+     * @return true if messages are forwarded to all the nodes
+     */
+    default boolean forwardsMessages() {
+        return false;
+    }
+
+    /**
+     * Close the pools.
+     */
+    @Override
+    void close();
+}
@@ -1,12 +1,26 @@
 package org.redis.objects;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import org.redis.objects.exceptions.RedisobjectsException;
+import org.redis.objects.metrics.MeteredSerializer;
+import org.redis.objects.metrics.Metrics;
 import org.redis.objects.serializer.kryo.KryoSerializer;
 import org.redis.objects.serializer.Serializer;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisAskDataException;
 import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.util.SafeEncoder;
 
 /**
  * Redis object.
@@ -17,6 +31,29 @@ import redis.clients.jedis.exceptions.JedisConnectionException;
  */
 public abstract class RedisObject<K, V> {
 
+    /**
+     * Operation names of works: name of the method creating the work.
+     */
+    private static final ClassValue<String> OPERATIONS = new ClassValue<String>() {
+
+        @Override
+        protected String computeValue(Class<?> type) {
+            Method method = type.getEnclosingMethod();
+            return null == method ? type.getSimpleName() : method.getName();
+        }
+    };
+
+    /**
+     * Max redirections of a command to other nodes.
+     */
+    private static final int MAX_REDIRECTIONS = 5;
+
+    /**
+     * Stripe of the work enqueued by the current thread (set only if bytes
+     * are counted).
+     */
+    private static final ThreadLocal<PipelineManager.Stripe> PIPING = new ThreadLocal<>();
+
     protected final PipelineManager pipelineManager;
 
     protected final JedisPool jedisPool;
@@ -25,72 +62,493 @@ public abstract class RedisObject<K, V> {
 
     protected boolean syncImmediate = false;
 
-    private final Serializer serializer;
+    /**
+     * Serializer of keys and values given to the object (or default).
+     */
+    protected final Serializer serializer;
+
+    private final Serializer keySerializer;
 
+    private final Serializer valueSerializer;
+
+    /**
+     * Metrics (null if disabled).
+     */
+    protected final Metrics metrics;
+
+    /**
+     * Nodes serving the keys of the object (null if served by the pool).
+     */
+    protected final RedisNodes nodes;
+
+    /**
+     * Create Redis object with the options of the first versions.
+     *
+     * @param jedisPool Jedis pool
+     * @param name name of the object in Redis
+     * @param syncImmediate sync pipeline after each write
+     * @param maxWithoutSync max writes before pipeline sync
+     * @param delayBeforeSync delay before pipeline sync (ms)
+     * @param serializer serializer (default: Kryo)
+     */
     public RedisObject(final JedisPool jedisPool, final String name, Boolean syncImmediate, Integer maxWithoutSync, Integer delayBeforeSync, Serializer serializer) {
-        this.jedisPool = jedisPool;
+        this(jedisPool, name, syncImmediate, maxWithoutSync, delayBeforeSync, null, serializer, null, null, null, null, null, null);
+    }
+
+    /**
+     * Create Redis object.
+     *
+     * @param jedisPool Jedis pool
+     * @param name name of the object in Redis
+     * @param syncImmediate sync pipeline after each write
+     * @param maxWithoutSync max writes before pipeline sync
+     * @param delayBeforeSync delay before pipeline sync (ms)
+     * @param pipelines number of concurrent write pipelines (default: 1)
+     * @param serializer serializer of keys and values (default: Kryo)
+     * @param keySerializer serializer of keys (default: serializer)
+     * @param valueSerializer serializer of values (default: serializer)
+     * @param metrics metrics (default: none)
+     * @param flushPolicy policy syncing write pipelines (default: thresholds
+     * of maxWithoutSync and delayBeforeSync)
+     * @param pipelineManager pipeline manager shared with other objects
+     * (default: pipeline manager of the object, built with pipelines and
+     * flushPolicy)
+     * @param nodes nodes serving the keys of the object, in place of the
+     * pool (default: none)
+     */
+    public RedisObject(final JedisPool jedisPool, final String name, Boolean syncImmediate, Integer maxWithoutSync, Integer delayBeforeSync, Integer pipelines, Serializer serializer, Serializer keySerializer, Serializer valueSerializer, Metrics metrics, FlushPolicy flushPolicy, PipelineManager pipelineManager, RedisNodes nodes) {
+        this.jedisPool = null == jedisPool && null != nodes ? nodes.getPool(name) : jedisPool;
+        this.nodes = nodes;
         this.name = name;
         if (null != syncImmediate) {
             this.syncImmediate = syncImmediate;
         }
-        pipelineManager = new PipelineManager(jedisPool);
-        if (null != maxWithoutSync) {
-            pipelineManager.setMaxWithoutSync(maxWithoutSync);
+        this.metrics = metrics;
+        if (null != pipelineManager) {
+            this.pipelineManager = pipelineManager;
+        } else {
+            this.pipelineManager = new PipelineManager(this.jedisPool, null == pipelines ? 1 : pipelines, name, metrics, null);
+            if (null != flushPolicy) {
+                this.pipelineManager.setFlushPolicy(flushPolicy);
+            } else if (null != maxWithoutSync || null != delayBeforeSync) {
+                this.pipelineManager.setFlushPolicy(new ThresholdFlushPolicy(
+                        null == maxWithoutSync ? ThresholdFlushPolicy.DEFAULT_MAX_COMMANDS : maxWithoutSync, 0,
+                        null == delayBeforeSync ? ThresholdFlushPolicy.DEFAULT_DELAY : delayBeforeSync));
+            }
         }
-        if (null != delayBeforeSync) {
-            pipelineManager.setMaxWithoutSync(maxWithoutSync);
+        if (null == serializer) {
+            serializer = new KryoSerializer();
         }
-        if (null != serializer) {
-            this.serializer = serializer;
-        } else {
-            this.serializer = new KryoSerializer();
+        this.serializer = serializer;
+        if (null == keySerializer) {
+            keySerializer = serializer;
+        }
+        if (null == valueSerializer) {
+            valueSerializer = serializer;
         }
+        if (null != metrics) {
+            boolean shared = keySerializer == valueSerializer;
+            keySerializer = new MeteredSerializer(keySerializer, metrics, name);
+            valueSerializer = shared ? keySerializer : new MeteredSerializer(valueSerializer, metrics, name);
+        }
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
     }
 
     protected byte[] valueToBytes(V object) throws IOException {
-        return serializer.toBytes(object);
+        return written(valueSerializer.toBytes(object));
     }
 
     protected V bytesToValue(byte[] bytes) throws IOException, ClassNotFoundException {
-        return (V) serializer.toObject(bytes);
+        return (V) valueSerializer.toObject(bytes);
+    }
+
+    /**
+     * Serialize values in chunks.
+     *
+     * @param values values
+     * @param chunkSize max values per chunk
+     * @return chunks
+     */
+    protected List<byte[][]> valuesToChunks(Collection<?> values, int chunkSize) {
+        try {
+            List<byte[][]> chunks = new ArrayList<>();
+            Iterator<?> it = values.iterator();
+            for (int remaining = values.size(); remaining > 0; remaining -= chunkSize) {
+                byte[][] chunk = new byte[Math.min(remaining, chunkSize)][];
+                for (int i = 0; i < chunk.length; i++) {
+                    chunk[i] = valueToBytes((V) it.next());
+                }
+                chunks.add(chunk);
+            }
+            return chunks;
+        } catch (IOException ex) {
+            throw new RedisobjectsException(ex);
+        }
+    }
+
+    /**
+     * Name of a new temporary key, in the hash slot of the object.
+     *
+     * @return key
+     */
+    protected String tmpKey() {
+        int start = name.indexOf('{');
+        if (start >= 0 && name.indexOf('}', start) > start + 1) {
+            return name + ":tmp:" + UUID.randomUUID();
+        }
+        return "{" + name + "}:tmp:" + UUID.randomUUID();
+    }
+
+    /**
+     * Pipeline manager of the node serving a key.
+     *
+     * @param key key
+     * @return pipeline manager
+     */
+    protected PipelineManager managerOf(String key) {
+        return null == nodes ? pipelineManager : pipelineManager.forNode(nodes, nodes.getPool(key));
+    }
+
+    /**
+     * Names in Redis of the object then of other objects, after sending the
+     * pending writes of the other objects.
+     *
+     * @param destination key storing the result of a command on the objects
+     * @param objects objects
+     * @return names
+     * @throws IllegalArgumentException if the destination or an object is not
+     * served by the node of the object
+     */
+    protected byte[][] namesOf(String destination, RedisObject<?, ?>... objects) {
+        JedisPool pool = null == nodes ? jedisPool : nodes.getPool(name);
+        if (pool != (null == nodes ? jedisPool : nodes.getPool(destination))) {
+            throw new IllegalArgumentException("Keys " + name + " and " + destination + " are not served by the same node: use a common hash tag");
+        }
+        byte[][] names = new byte[objects.length + 1][];
+        names[0] = SafeEncoder.encode(name);
+        for (int i = 0; i < objects.length; i++) {
+            if (pool != (null == objects[i].nodes ? objects[i].jedisPool : objects[i].nodes.getPool(objects[i].name))) {
+                throw new IllegalArgumentException("Keys " + name + " and " + objects[i].name + " are not served by the same node: use a common hash tag");
+            }
+            objects[i].sync();
+            names[i + 1] = SafeEncoder.encode(objects[i].name);
+        }
+        return names;
     }
 
     protected byte[] keyToBytes(K key) throws IOException {
-        return serializer.toBytes(key);
+        return written(keySerializer.toBytes(key));
+    }
+
+    /**
+     * Count bytes serialized for a command enqueued in the pipeline of the
+     * current thread.
+     */
+    private byte[] written(byte[] bytes) {
+        if (pipelineManager.getFlushPolicy().countsBytes()) {
+            PipelineManager.Stripe stripe = PIPING.get();
+            if (null != stripe) {
+                stripe.written(bytes.length);
+            }
+        }
+        return bytes;
     }
 
     protected K bytesToKey(byte[] bytes) throws IOException, ClassNotFoundException {
-        return (K) serializer.toObject(bytes);
+        return (K) keySerializer.toObject(bytes);
     }
 
-    synchronized public void sync() {
-        pipelineManager.sync();
+    public void sync() {
+        flushWrites();
+        if (null == nodes) {
+            pipelineManager.sync();
+        } else {
+            pipelineManager.syncAll();
+        }
+    }
+
+    /**
+     * Send the writes held by the object (write-behind mode), before any
+     * other command of the object.
+     */
+    protected void flushWrites() {
+    }
+
+    public <T> T run(Work<T> work) {
+        return run(managerOf(name), work);
     }
 
-    synchronized public <T> T run(Work<T> work) {
-        pipelineManager.sync();
-        Jedis jedis = jedisPool.getResource();
+    /**
+     * Run a work on the node of a pipeline manager, after syncing pending
+     * writes (redirections to other nodes are followed).
+     *
+     * @param <T> result of the work
+     * @param manager pipeline manager of the node
+     * @param work work
+     * @return result
+     */
+    protected <T> T run(PipelineManager manager, Work<T> work) {
+        if (null == metrics) {
+            return execute(manager, work);
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
         try {
-            return work.work(jedis);
-        } catch (JedisConnectionException ex) {
-            jedisPool.returnBrokenResource(jedis);
-            throw ex;
+            T res = execute(manager, work);
+            failed = false;
+            return res;
         } finally {
-            jedisPool.returnResource(jedis);
+            metrics.operation(name, OPERATIONS.get(work.getClass()), System.nanoTime() - start, failed);
         }
     }
 
-    synchronized public <T> T pipelined(PipelinedWork<T> work) {
-        pipelineManager.pipe();
-        T res = work.work(pipelineManager.getPipeline());
-        if (syncImmediate) {
-            pipelineManager.sync();
+    private <T> T execute(PipelineManager manager, Work<T> work) {
+        sync();
+        boolean asking = false;
+        for (int redirections = 0;; redirections++) {
+            Jedis jedis = manager.getResource();
+            boolean broken = false;
+            PipelineManager redirected;
+            try {
+                if (asking) {
+                    jedis.asking();
+                }
+                return work.work(jedis);
+            } catch (JedisRedirectionException ex) {
+                if (null == nodes || redirections == MAX_REDIRECTIONS) {
+                    throw ex;
+                }
+                asking = ex instanceof JedisAskDataException;
+                redirected = pipelineManager.forNode(nodes, nodes.redirect(ex));
+            } catch (JedisConnectionException ex) {
+                broken = true;
+                manager.returnBrokenResource(jedis);
+                throw ex;
+            } finally {
+                if (!broken) {
+                    manager.returnResource(jedis);
+                }
+            }
+            manager = redirected;
+        }
+    }
+
+    public <T> T pipelined(PipelinedWork<T> work) {
+        return pipelined(managerOf(name), work);
+    }
+
+    /**
+     * Enqueue a work in the pipeline of a node.
+     *
+     * @param <T> result of the work
+     * @param manager pipeline manager of the node
+     * @param work work
+     * @return result
+     */
+    protected <T> T pipelined(PipelineManager manager, PipelinedWork<T> work) {
+        flushWrites();
+        return pipe(manager, work);
+    }
+
+    /**
+     * Enqueue a work in the pipeline, without flushing held writes.
+     *
+     * @param <T> result of the work
+     * @param work work
+     * @return result
+     */
+    <T> T pipe(PipelinedWork<T> work) {
+        return pipe(managerOf(name), work);
+    }
+
+    /**
+     * Enqueue a work in the pipeline of a node, without flushing held
+     * writes.
+     *
+     * @param <T> result of the work
+     * @param manager pipeline manager of the node
+     * @param work work
+     * @return result
+     */
+    <T> T pipe(PipelineManager manager, PipelinedWork<T> work) {
+        if (null == metrics) {
+            return enqueue(manager, work);
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T res = enqueue(manager, work);
+            failed = false;
+            return res;
+        } finally {
+            metrics.operation(name, OPERATIONS.get(work.getClass()), System.nanoTime() - start, failed);
+        }
+    }
+
+    private <T> T enqueue(PipelineManager manager, PipelinedWork<T> work) {
+        return enqueue(manager, work, syncImmediate, false, 0);
+    }
+
+    /**
+     * Enqueue a work, sent again to the node a command is redirected to
+     * (pipeline synced at once).
+     */
+    private <T> T enqueue(PipelineManager manager, final PipelinedWork<T> work, boolean sync, boolean asking, final int redirections) {
+        PipelineManager.Stripe stripe = manager.stripe();
+        T res;
+        synchronized (stripe) {
+            stripe.pipe();
+            int from = stripe.position();
+            if (asking) {
+                stripe.asking();
+            }
+            res = work(stripe, work);
+            if (null != nodes) {
+                stripe.sent(from, new PipelineManager.Redirectable() {
+
+                    @Override
+                    public void redirected(JedisRedirectionException ex) {
+                        enqueue(redirect(ex, redirections), work, true, ex instanceof JedisAskDataException, redirections + 1);
+                    }
+                }, null);
+            }
+        }
+        // synced out of the lock: a redirected work locks the stripe of another node
+        if (sync) {
+            stripe.sync();
         } else {
-            pipelineManager.delaySync();
+            stripe.piped();
         }
         return res;
     }
 
+    /**
+     * Pipeline manager of the node a pipelined command is redirected to.
+     *
+     * @throws JedisRedirectionException after too many redirections
+     */
+    private PipelineManager redirect(JedisRedirectionException ex, int redirections) {
+        if (redirections == MAX_REDIRECTIONS) {
+            throw ex;
+        }
+        return pipelineManager.forNode(nodes, nodes.redirect(ex));
+    }
+
+    private <T> T work(PipelineManager.Stripe stripe, PipelinedWork<T> work) {
+        if (!pipelineManager.getFlushPolicy().countsBytes()) {
+            return work.work(stripe.getPipeline());
+        }
+        PIPING.set(stripe);
+        try {
+            return work.work(stripe.getPipeline());
+        } finally {
+            PIPING.remove();
+        }
+    }
+
+    /**
+     * Enqueue a work in the pipeline and get its result asynchronously: the
+     * pipeline is synced in background as soon as possible, so that
+     * concurrent works share the same round trip.
+     *
+     * @param <R> responses of the work
+     * @param <T> result of the work
+     * @param work work
+     * @return result, completed when the pipeline is synced
+     */
+    public <R, T> CompletableFuture<T> pipelinedAsync(final AsyncWork<R, T> work) {
+        return pipelinedAsync(managerOf(name), work);
+    }
+
+    /**
+     * Enqueue a work in the pipeline of a node and get its result
+     * asynchronously.
+     *
+     * @param <R> responses of the work
+     * @param <T> result of the work
+     * @param manager pipeline manager of the node
+     * @param work work
+     * @return result, completed when the pipeline is synced
+     */
+    protected <R, T> CompletableFuture<T> pipelinedAsync(PipelineManager manager, final AsyncWork<R, T> work) {
+        flushWrites();
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        if (null != metrics) {
+            final long start = System.nanoTime();
+            final String operation = "async." + OPERATIONS.get(work.getClass());
+            future.whenComplete(new BiConsumer<T, Throwable>() {
+
+                @Override
+                public void accept(T t, Throwable ex) {
+                    metrics.operation(name, operation, System.nanoTime() - start, null != ex);
+                }
+            });
+        }
+        enqueueAsync(manager, work, future, false, 0);
+        return future;
+    }
+
+    /**
+     * Enqueue an asynchronous work, sent again to the node a command is
+     * redirected to.
+     */
+    private <R, T> void enqueueAsync(PipelineManager manager, final AsyncWork<R, T> work, final CompletableFuture<T> future, boolean asking, final int redirections) {
+        PipelineManager.Stripe stripe = manager.stripe();
+        synchronized (stripe) {
+            stripe.pipe();
+            int from = stripe.position();
+            if (asking) {
+                stripe.asking();
+            }
+            final R responses;
+            boolean counts = pipelineManager.getFlushPolicy().countsBytes();
+            if (counts) {
+                PIPING.set(stripe);
+            }
+            try {
+                responses = work.work(stripe.getPipeline());
+            } catch (RuntimeException ex) {
+                future.completeExceptionally(ex);
+                return;
+            } finally {
+                if (counts) {
+                    PIPING.remove();
+                }
+            }
+            PipelineManager.SyncCallback callback = new PipelineManager.SyncCallback() {
+
+                @Override
+                public void synced() {
+                    try {
+                        future.complete(work.result(responses));
+                    } catch (IOException | ClassNotFoundException ex) {
+                        future.completeExceptionally(new RedisobjectsException(ex));
+                    } catch (RuntimeException ex) {
+                        future.completeExceptionally(ex);
+                    }
+                }
+
+                @Override
+                public void failed(RuntimeException ex) {
+                    future.completeExceptionally(ex);
+                }
+            };
+            if (null == nodes) {
+                stripe.onSync(callback);
+            } else {
+                stripe.sent(from, new PipelineManager.Redirectable() {
+
+                    @Override
+                    public void redirected(JedisRedirectionException ex) {
+                        enqueueAsync(redirect(ex, redirections), work, future, ex instanceof JedisAskDataException, redirections + 1);
+                    }
+                }, callback);
+            }
+            stripe.requestSync();
+        }
+    }
+
     public interface Work<T> {
 
         public T work(Jedis jedis);
@@ -100,4 +558,25 @@ public abstract class RedisObject<K, V> {
 
         public T work(Pipeline pipeline);
     }
+
+    public interface AsyncWork<R, T> {
+
+        /**
+         * Enqueue commands.
+         *
+         * @param pipeline pipeline
+         * @return responses
+         */
+        public R work(Pipeline pipeline);
+
+        /**
+         * Compute result once responses are available.
+         *
+         * @param responses responses
+         * @return result
+         * @throws IOException
+         * @throws ClassNotFoundException
+         */
+        public T result(R responses) throws IOException, ClassNotFoundException;
+    }
 }
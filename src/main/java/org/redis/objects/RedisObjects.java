@@ -0,0 +1,193 @@
+package org.redis.objects;
+
+import java.io.Closeable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.experimental.Builder;
+import org.redis.objects.metrics.Metrics;
+import org.redis.objects.serializer.Serializer;
+import org.redis.objects.serializer.kryo.KryoSerializer;
+import redis.clients.jedis.JedisPool;
+
+/**
+ * Factory of Redis objects sharing a Jedis pool, a serializer, metrics and a
+ * pipeline manager.
+ *
+ * Objects hold neither thread nor connection, so they are cheap to create
+ * (for instance per request): writes of all the objects are batched in the
+ * same pipelines, synced by the scheduler of the factory with at most one
+ * task per dirty pipeline. Near-cached maps of a pool share one subscriber
+ * connection, started by the first near cache filled. Closing the factory
+ * syncs the pending writes, stops the subscriber, then closes the pool.
+ *
+ * Built with nodes (Redis Cluster, sharded pools), objects are spread over
+ * the nodes by name, with one pipeline manager per node.
+ *
+ * @author Mathieu MAST
+ */
+public class RedisObjects implements Closeable {
+
+    /**
+     * Name of the shared pipelines reported to metrics.
+     */
+    public static final String NAME = "redis-objects";
+
+    private static final long CLOSE_TIMEOUT = 10000;
+
+    @Getter
+    private final JedisPool jedisPool;
+
+    @Getter
+    private final RedisNodes nodes;
+
+    @Getter
+    private final Serializer serializer;
+
+    @Getter
+    private final Metrics metrics;
+
+    @Getter
+    private final PipelineManager pipelineManager;
+
+    private final ScheduledExecutorService scheduler;
+
+    public RedisObjects(final JedisPool jedisPool) {
+        this(jedisPool, null, null, null, null, null, null);
+    }
+
+    /**
+     * Create Redis objects factory.
+     *
+     * @param jedisPool Jedis pool (closed with the factory)
+     * @param serializer serializer of keys and values (default: Kryo)
+     * @param metrics metrics (default: none)
+     * @param pipelines number of concurrent write pipelines (default: 1)
+     * @param flushPolicy policy syncing write pipelines (default: 100
+     * commands or 100 ms)
+     * @param schedulerThreads threads syncing pipelines in background
+     * (default: 1)
+     * @param nodes nodes serving the objects, in place of jedisPool (closed
+     * with the factory, default: none)
+     */
+    @Builder
+    public RedisObjects(final JedisPool jedisPool, Serializer serializer, Metrics metrics, Integer pipelines, FlushPolicy flushPolicy, Integer schedulerThreads, RedisNodes nodes) {
+        this.jedisPool = null == jedisPool && null != nodes ? nodes.getPools().iterator().next() : jedisPool;
+        this.nodes = nodes;
+        this.serializer = null == serializer ? new KryoSerializer() : serializer;
+        this.metrics = metrics;
+        this.scheduler = PipelineManager.newScheduler(null == schedulerThreads ? 1 : schedulerThreads);
+        this.pipelineManager = new PipelineManager(this.jedisPool, null == pipelines ? 1 : pipelines, NAME, metrics, scheduler);
+        if (null != flushPolicy) {
+            pipelineManager.setFlushPolicy(flushPolicy);
+        }
+    }
+
+    /**
+     * Builder of a map using the shared resources.
+     *
+     * @param <K> key
+     * @param <V> value
+     * @param name name of the hash in Redis
+     * @return builder
+     */
+    public <K, V> RedisMap.RedisMapBuilder<K, V> mapBuilder(String name) {
+        return RedisMap.<K, V>builder().jedisPool(null == nodes ? jedisPool : null).nodes(nodes).name(name).serializer(serializer).metrics(metrics).pipelineManager(pipelineManager);
+    }
+
+    public <K, V> RedisMap<K, V> map(String name) {
+        return this.<K, V>mapBuilder(name).build();
+    }
+
+    /**
+     * Builder of a set using the shared resources.
+     *
+     * @param <V> member
+     * @param name name of the set in Redis
+     * @return builder
+     */
+    public <V> RedisSet.RedisSetBuilder<V> setBuilder(String name) {
+        return RedisSet.<V>builder().jedisPool(null == nodes ? jedisPool : null).nodes(nodes).name(name).serializer(serializer).metrics(metrics).pipelineManager(pipelineManager);
+    }
+
+    public <V> RedisSet<V> set(String name) {
+        return this.<V>setBuilder(name).build();
+    }
+
+    /**
+     * Builder of a sorted set using the shared resources.
+     *
+     * @param <V> member
+     * @param name name of the sorted set in Redis
+     * @return builder
+     */
+    public <V extends Scoreable> RedisSortedSet.RedisSortedSetBuilder<V> sortedSetBuilder(String name) {
+        return RedisSortedSet.<V>builder().jedisPool(null == nodes ? jedisPool : null).nodes(nodes).name(name).serializer(serializer).metrics(metrics).pipelineManager(pipelineManager);
+    }
+
+    public <V extends Scoreable> RedisSortedSet<V> sortedSet(String name) {
+        return this.<V>sortedSetBuilder(name).build();
+    }
+
+    /**
+     * Builder of a string using the shared resources.
+     *
+     * @param name key of the string in Redis
+     * @return builder
+     */
+    public RedisString.RedisStringBuilder stringBuilder(String name) {
+        return RedisString.builder().jedisPool(null == nodes ? jedisPool : null).nodes(nodes).name(name).serializer(serializer).metrics(metrics).pipelineManager(pipelineManager);
+    }
+
+    public RedisString string(String name) {
+        return stringBuilder(name).build();
+    }
+
+    /**
+     * Builder of a counter map using the shared resources.
+     *
+     * @param <K> key
+     * @param name name of the hash in Redis
+     * @return builder
+     */
+    public <K> RedisCounterMap.RedisCounterMapBuilder<K> counterMapBuilder(String name) {
+        return RedisCounterMap.<K>builder().jedisPool(null == nodes ? jedisPool : null).nodes(nodes).name(name).keySerializer(serializer).metrics(metrics).pipelineManager(pipelineManager);
+    }
+
+    public <K> RedisCounterMap<K> counterMap(String name) {
+        return this.<K>counterMapBuilder(name).build();
+    }
+
+    /**
+     * Sync the pipelines shared by the objects.
+     */
+    public void sync() {
+        pipelineManager.syncAll();
+    }
+
+    /**
+     * Sync pending writes, stop the scheduler, stop listening invalidation
+     * messages of near-cached maps and close the pool. Objects must not be
+     * used anymore.
+     */
+    @Override
+    public void close() {
+        // delayed tasks (write-behind flushes) are run by the shutdown
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        pipelineManager.syncAll();
+        if (null == nodes) {
+            InvalidationListener.close(jedisPool);
+            jedisPool.close();
+        } else {
+            for (JedisPool pool : nodes.getPools()) {
+                InvalidationListener.close(pool);
+            }
+            nodes.close();
+        }
+    }
+}
@@ -2,16 +2,24 @@ package org.redis.objects;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import lombok.experimental.Builder;
 import org.redis.objects.exceptions.RedisobjectsException;
+import org.redis.objects.metrics.Metrics;
 import org.redis.objects.serializer.Serializer;
+import redis.clients.jedis.Client;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
 import redis.clients.jedis.Transaction;
 import redis.clients.util.SafeEncoder;
 
@@ -23,13 +31,66 @@ import redis.clients.util.SafeEncoder;
  */
 public class RedisSet<V> extends RedisObject<V, V> implements Set<V> {
 
+    private final int scanCount;
+
+    private final int chunkSize;
+
+    /**
+     * Write-behind buffer (null if disabled).
+     */
+    private final WriteBuffer<V, Boolean> writeBuffer;
+
+    private final Async async = new Async();
+
     public RedisSet(final JedisPool jedisPool, final String name) {
-        this(jedisPool, name, null, null, null, null);
+        this(jedisPool, name, null, null, null, null, null, null, null, null, null, null, null, null);
     }
-    
-    @Builder
+
+    /**
+     * Create Redis set with the options of the first versions (other
+     * options are set with the builder).
+     *
+     * @param jedisPool Jedis pool
+     * @param name name of the set in Redis
+     * @param syncImmediate sync pipeline after each write
+     * @param maxWithoutSync max writes before pipeline sync
+     * @param delayBeforeSync delay before pipeline sync (ms)
+     * @param serializer serializer (default: Kryo)
+     */
     public RedisSet(final JedisPool jedisPool, final String name, Boolean syncImmediate, Integer maxWithoutSync, Integer delayBeforeSync, Serializer serializer) {
-        super(jedisPool, name, syncImmediate, maxWithoutSync, delayBeforeSync, serializer);
+        this(jedisPool, name, syncImmediate, maxWithoutSync, delayBeforeSync, null, serializer, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * Create Redis set.
+     *
+     * @param jedisPool Jedis pool
+     * @param name name of the set in Redis
+     * @param syncImmediate sync pipeline after each write
+     * @param maxWithoutSync max writes before pipeline sync
+     * @param delayBeforeSync delay before pipeline sync (ms)
+     * @param pipelines number of concurrent write pipelines (default: 1)
+     * @param serializer serializer (default: Kryo)
+     * @param scanCount COUNT hint of SSCAN used by iterators (default: 100)
+     * @param chunkSize max members per chunk of bulk reads (default: 1000)
+     * @param writeBehind hold writes and send only the last state of each
+     * member, with one SADD and one SREM, when the pipeline would be synced
+     * (default: false)
+     * @param metrics metrics (default: none)
+     * @param flushPolicy policy syncing write pipelines (default: thresholds
+     * of maxWithoutSync and delayBeforeSync)
+     * @param pipelineManager pipeline manager shared with other objects
+     * (default: pipeline manager of the object, built with pipelines and
+     * flushPolicy)
+     * @param nodes nodes serving the keys of the object, in place of
+     * jedisPool (default: none)
+     */
+    @Builder
+    public RedisSet(final JedisPool jedisPool, final String name, Boolean syncImmediate, Integer maxWithoutSync, Integer delayBeforeSync, Integer pipelines, Serializer serializer, Integer scanCount, Integer chunkSize, Boolean writeBehind, Metrics metrics, FlushPolicy flushPolicy, PipelineManager pipelineManager, RedisNodes nodes) {
+        super(jedisPool, name, syncImmediate, maxWithoutSync, delayBeforeSync, pipelines, serializer, null, null, metrics, flushPolicy, pipelineManager, nodes);
+        this.scanCount = null == scanCount ? ScanIterator.DEFAULT_SCAN_COUNT : scanCount;
+        this.chunkSize = null == chunkSize ? ChunkedRead.DEFAULT_CHUNK_SIZE : chunkSize;
+        this.writeBuffer = null != writeBehind && writeBehind ? new SetWriteBuffer() : null;
     }
 
     /**
@@ -79,26 +140,38 @@ public class RedisSet<V> extends RedisObject<V, V> implements Set<V> {
     }
 
     /**
-     * {@inheritDoc}
+     * Iterate over the set with SSCAN: members are fetched and deserialized page
+     * by page (a member may be returned more than once if the set is rehashed
+     * during iteration).
+     *
+     * @return iterator
      */
     @Override
     public Iterator<V> iterator() {
-        return run(new Work<Iterator<V>>() {
+        return new ScanIterator<byte[], V>(this, scanCount) {
 
             @Override
-            public Iterator<V> work(Jedis jedis) {
-                try {
-                    List<V> list = new ArrayList<>();
-                    Set<byte[]> res = jedis.smembers(SafeEncoder.encode(name));
-                    for (byte[] bytes : res) {
-                        list.add(bytesToValue(bytes));
+            protected ScanResult<byte[]> scan(Jedis jedis, byte[] cursor, ScanParams params) {
+                return jedis.sscan(SafeEncoder.encode(name), cursor, params);
+            }
+
+            @Override
+            protected V convert(byte[] raw) throws IOException, ClassNotFoundException {
+                return bytesToValue(raw);
+            }
+
+            @Override
+            protected void remove(final byte[] raw) {
+                pipelined(new PipelinedWork<Boolean>() {
+
+                    @Override
+                    public Boolean work(Pipeline pipeline) {
+                        pipeline.srem(SafeEncoder.encode(name), raw);
+                        return true;
                     }
-                    return list.iterator();
-                } catch (IOException | ClassNotFoundException ex) {
-                    throw new RedisobjectsException(ex);
-                }
+                });
             }
-        });
+        };
     }
 
     /**
@@ -106,22 +179,7 @@ public class RedisSet<V> extends RedisObject<V, V> implements Set<V> {
      */
     @Override
     public Object[] toArray() {
-        return run(new Work<Object[]>() {
-
-            @Override
-            public Object[] work(Jedis jedis) {
-                try {
-                    List<V> list = new ArrayList<>();
-                    Set<byte[]> res = jedis.smembers(SafeEncoder.encode(name));
-                    for (byte[] bytes : res) {
-                        list.add(bytesToValue(bytes));
-                    }
-                    return list.toArray();
-                } catch (IOException | ClassNotFoundException ex) {
-                    throw new RedisobjectsException(ex);
-                }
-            }
-        });
+        return toList().toArray();
     }
 
     /**
@@ -129,32 +187,31 @@ public class RedisSet<V> extends RedisObject<V, V> implements Set<V> {
      */
     @Override
     public <T> T[] toArray(final T[] a) {
-        return run(new Work<T[]>() {
+        return toList().toArray(a);
+    }
 
-            @Override
-            public T[] work(Jedis jedis) {
-                try {
-                    List<V> list = new ArrayList<>();
-                    Set<byte[]> res = jedis.smembers(SafeEncoder.encode(name));
-                    for (byte[] bytes : res) {
-                        list.add(bytesToValue(bytes));
-                    }
-                    return list.toArray(a);
-                } catch (IOException | ClassNotFoundException ex) {
-                    throw new RedisobjectsException(ex);
-                }
-            }
-        });
+    private List<V> toList() {
+        List<V> list = new ArrayList<>();
+        Iterator<V> it = iterator();
+        while (it.hasNext()) {
+            list.add(it.next());
+        }
+        return list;
     }
 
     /**
-     * Add object (WARNING: always returning true).
+     * Add object (WARNING: always returning true, the change is returned by
+     * {@link Async#add} without blocking).
      *
      * @param e object
      * @return true
      */
     @Override
     public boolean add(final V e) {
+        if (null != writeBuffer) {
+            writeBuffer.put(e, true);
+            return true;
+        }
         return pipelined(new PipelinedWork<Boolean>() {
 
             @Override
@@ -170,12 +227,17 @@ public class RedisSet<V> extends RedisObject<V, V> implements Set<V> {
     }
 
     /**
-     * Remove object (WARNING: always returning true).
+     * Remove object (WARNING: always returning true, the change is returned
+     * by {@link Async#remove} without blocking).
      *
      * @return true
      */
     @Override
     public boolean remove(final Object o) {
+        if (null != writeBuffer) {
+            writeBuffer.remove((V) o);
+            return true;
+        }
         return pipelined(new PipelinedWork<Boolean>() {
 
             @Override
@@ -191,58 +253,73 @@ public class RedisSet<V> extends RedisObject<V, V> implements Set<V> {
     }
 
     /**
-     * {@inheritDoc}
+     * Test if all objects are in the set, checking them in chunks sent over one
+     * connection.
+     *
+     * @param c objects
+     * @return true if all objects are in the set
      */
     @Override
     public boolean containsAll(final Collection<?> c) {
-        return run(new Work<Boolean>() {
+        return run(new ChunkedRead<Object>(c, chunkSize) {
 
             @Override
-            public Boolean work(Jedis jedis) {
-                try {
-                    for (Object o : c) {
-                        Boolean exists = jedis.sismember(SafeEncoder.encode(name), valueToBytes((V) o));
-                        if (null == exists || false == exists) {
-                            return false;
-                        }
-                    }
-                    return true;
-                } catch (IOException ex) {
-                    throw new RedisobjectsException(ex);
+            protected void send(Client client, List<Object> chunk) throws IOException {
+                List<byte[]> members = new ArrayList<>();
+                for (Object o : chunk) {
+                    members.add(valueToBytes((V) o));
                 }
+                for (byte[] member : members) {
+                    client.sismember(SafeEncoder.encode(name), member);
+                }
+            }
+
+            @Override
+            protected boolean receive(Client client, List<Object> chunk) {
+                boolean res = true;
+                for (int i = 0; i < chunk.size(); i++) {
+                    Long exists = client.getIntegerReply();
+                    res &= null != exists && 1 == exists;
+                }
+                return res;
             }
         });
     }
 
     /**
-     * Add objects (WARNING: always returning true).
+     * Add objects with variadic SADD, in chunks sent in one transaction.
      *
      * @param c objects
-     * @return true
+     * @return true if the set changed
      */
     @Override
     public boolean addAll(final Collection<? extends V> c) {
+        if (c.isEmpty()) {
+            return false;
+        }
         return run(new Work<Boolean>() {
 
             @Override
             public Boolean work(Jedis jedis) {
+                List<byte[][]> chunks = valuesToChunks(c, chunkSize);
                 Transaction tr = jedis.multi();
-                try {
-                    for (V value : c) {
-                        tr.sadd(SafeEncoder.encode(name), valueToBytes(value));
-                    }
-                    tr.exec();
-                } catch (IOException ex) {
-                    tr.discard();
-                    throw new RedisobjectsException(ex);
+                List<Response<Long>> added = new ArrayList<>();
+                for (byte[][] chunk : chunks) {
+                    added.add(tr.sadd(SafeEncoder.encode(name), chunk));
                 }
-                return true;
+                tr.exec();
+                return changed(added);
             }
         });
     }
 
     /**
-     * {@inheritDoc}
+     * Retain objects on the server: objects are loaded in a temporary set,
+     * intersected with the set by SINTERSTORE in one transaction (objects are
+     * compared by their serialized form).
+     *
+     * @param c objects
+     * @return true if the set changed
      */
     @Override
     public boolean retainAll(final Collection<?> c) {
@@ -250,59 +327,136 @@ public class RedisSet<V> extends RedisObject<V, V> implements Set<V> {
 
             @Override
             public Boolean work(Jedis jedis) {
-                boolean res = false;
-                Set<byte[]> list = jedis.smembers(SafeEncoder.encode(name));
+                List<byte[][]> chunks = valuesToChunks(c, chunkSize);
+                byte[] key = SafeEncoder.encode(name);
+                byte[] tmp = SafeEncoder.encode(tmpKey());
                 Transaction tr = jedis.multi();
-                try {
-                    for (byte[] bytes : list) {
-                        V value = (V) bytesToValue(bytes);
-                        if (!c.contains(value)) {
-                            tr.srem(SafeEncoder.encode(name), bytes);
-                            res = true;
-                        }
-                    }
-                    tr.exec();
-                } catch (IOException | ClassNotFoundException ex) {
-                    tr.discard();
-                    throw new RedisobjectsException(ex);
+                Response<Long> before = tr.scard(key);
+                for (byte[][] chunk : chunks) {
+                    tr.sadd(tmp, chunk);
                 }
-                return res;
+                Response<Long> after = tr.sinterstore(key, key, tmp);
+                tr.del(tmp);
+                tr.exec();
+                return !before.get().equals(after.get());
             }
         });
     }
 
     /**
-     * Remove objects (WARNING: always returning true).
+     * Remove objects with variadic SREM, in chunks sent in one transaction.
      *
      * @param c objects
-     * @return true
+     * @return true if the set changed
      */
     @Override
     public boolean removeAll(final Collection<?> c) {
+        if (c.isEmpty()) {
+            return false;
+        }
         return run(new Work<Boolean>() {
 
             @Override
             public Boolean work(Jedis jedis) {
+                List<byte[][]> chunks = valuesToChunks(c, chunkSize);
                 Transaction tr = jedis.multi();
-                try {
-                    for (Object object : c) {
-                        tr.srem(SafeEncoder.encode(name), valueToBytes((V) object));
-                    }
-                    tr.exec();
-                } catch (IOException ex) {
-                    tr.discard();
-                    throw new RedisobjectsException(ex);
+                List<Response<Long>> removed = new ArrayList<>();
+                for (byte[][] chunk : chunks) {
+                    removed.add(tr.srem(SafeEncoder.encode(name), chunk));
                 }
+                tr.exec();
+                return changed(removed);
+            }
+        });
+    }
+
+    private static boolean changed(List<Response<Long>> counts) {
+        for (Response<Long> count : counts) {
+            if (count.get() > 0) {
                 return true;
             }
+        }
+        return false;
+    }
+
+    /**
+     * Store the union of the set and other sets with SUNIONSTORE: members are
+     * never transferred, the result is iterated with SSCAN.
+     *
+     * @param destination name of the result in Redis (replaced)
+     * @param others other sets (of the same node, e.g. with a common hash tag)
+     * @return result, configured as the set
+     * @throws IllegalArgumentException if the destination or other sets are
+     * not served by the node of the set
+     */
+    public RedisSet<V> union(final String destination, final RedisSet<?>... others) {
+        final byte[][] keys = namesOf(destination, others);
+        return store(destination, new Work<Long>() {
+
+            @Override
+            public Long work(Jedis jedis) {
+                return jedis.sunionstore(SafeEncoder.encode(destination), keys);
+            }
+        });
+    }
+
+    /**
+     * Store the intersection of the set and other sets with SINTERSTORE:
+     * members are never transferred, the result is iterated with SSCAN.
+     *
+     * @param destination name of the result in Redis (replaced)
+     * @param others other sets (of the same node, e.g. with a common hash tag)
+     * @return result, configured as the set
+     * @throws IllegalArgumentException if the destination or other sets are
+     * not served by the node of the set
+     */
+    public RedisSet<V> intersect(final String destination, final RedisSet<?>... others) {
+        final byte[][] keys = namesOf(destination, others);
+        return store(destination, new Work<Long>() {
+
+            @Override
+            public Long work(Jedis jedis) {
+                return jedis.sinterstore(SafeEncoder.encode(destination), keys);
+            }
         });
     }
 
+    /**
+     * Store the members of the set that are in none of other sets with
+     * SDIFFSTORE: members are never transferred, the result is iterated with
+     * SSCAN.
+     *
+     * @param destination name of the result in Redis (replaced)
+     * @param others other sets (of the same node, e.g. with a common hash tag)
+     * @return result, configured as the set
+     * @throws IllegalArgumentException if the destination or other sets are
+     * not served by the node of the set
+     */
+    public RedisSet<V> difference(final String destination, final RedisSet<?>... others) {
+        final byte[][] keys = namesOf(destination, others);
+        return store(destination, new Work<Long>() {
+
+            @Override
+            public Long work(Jedis jedis) {
+                return jedis.sdiffstore(SafeEncoder.encode(destination), keys);
+            }
+        });
+    }
+
+    private RedisSet<V> store(String destination, Work<Long> work) {
+        run(work);
+        return new RedisSet<>(jedisPool, destination, syncImmediate, null, null, null, serializer, scanCount, chunkSize, null != writeBuffer, metrics, null, pipelineManager, nodes);
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void clear() {
+        if (null != writeBuffer) {
+            writeBuffer.clear();
+            return;
+        }
         pipelined(new PipelinedWork<Boolean>() {
 
             @Override
@@ -312,4 +466,314 @@ public class RedisSet<V> extends RedisObject<V, V> implements Set<V> {
             }
         });
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void flushWrites() {
+        if (null != writeBuffer) {
+            writeBuffer.flush();
+        }
+    }
+
+    /**
+     * Write-behind buffer sending held writes with DEL, SREM and SADD.
+     */
+    private class SetWriteBuffer extends WriteBuffer<V, Boolean> {
+
+        SetWriteBuffer() {
+            super(RedisSet.this);
+        }
+
+        @Override
+        protected void write(Pipeline pipeline, boolean cleared, Map<V, Boolean> puts, List<V> removes) throws IOException {
+            if (cleared) {
+                pipeline.del(SafeEncoder.encode(name));
+            }
+            if (!removes.isEmpty()) {
+                pipeline.srem(SafeEncoder.encode(name), toBytes(removes));
+            }
+            if (!puts.isEmpty()) {
+                pipeline.sadd(SafeEncoder.encode(name), toBytes(puts.keySet()));
+            }
+        }
+
+        private byte[][] toBytes(Collection<V> members) throws IOException {
+            byte[][] res = new byte[members.size()][];
+            int i = 0;
+            for (V member : members) {
+                res[i++] = valueToBytes(member);
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Asynchronous view of the set: commands are sent with the write
+     * pipeline and futures are completed when it is synced.
+     *
+     * @return asynchronous view
+     */
+    public Async async() {
+        return async;
+    }
+
+    /**
+     * Asynchronous operations of the set.
+     */
+    public class Async {
+
+        /**
+         * Test if object is in the set.
+         *
+         * @param o object
+         * @return future of the test
+         */
+        public CompletableFuture<Boolean> contains(final V o) {
+            return pipelinedAsync(new AsyncWork<Response<Boolean>, Boolean>() {
+
+                @Override
+                public Response<Boolean> work(Pipeline pipeline) {
+                    try {
+                        return pipeline.sismember(SafeEncoder.encode(name), valueToBytes(o));
+                    } catch (IOException ex) {
+                        throw new RedisobjectsException(ex);
+                    }
+                }
+
+                @Override
+                public Boolean result(Response<Boolean> responses) {
+                    return Boolean.TRUE.equals(responses.get());
+                }
+            });
+        }
+
+        /**
+         * Add object.
+         *
+         * @param o object
+         * @return future of the addition (true if the object was not in the set)
+         */
+        public CompletableFuture<Boolean> add(final V o) {
+            return pipelinedAsync(new AsyncWork<Response<Long>, Boolean>() {
+
+                @Override
+                public Response<Long> work(Pipeline pipeline) {
+                    try {
+                        return pipeline.sadd(SafeEncoder.encode(name), valueToBytes(o));
+                    } catch (IOException ex) {
+                        throw new RedisobjectsException(ex);
+                    }
+                }
+
+                @Override
+                public Boolean result(Response<Long> responses) {
+                    Long l = responses.get();
+                    return null != l && l > 0;
+                }
+            });
+        }
+
+        /**
+         * Remove object.
+         *
+         * @param o object
+         * @return future of the removal (true if the object was in the set)
+         */
+        public CompletableFuture<Boolean> remove(final V o) {
+            return pipelinedAsync(new AsyncWork<Response<Long>, Boolean>() {
+
+                @Override
+                public Response<Long> work(Pipeline pipeline) {
+                    try {
+                        return pipeline.srem(SafeEncoder.encode(name), valueToBytes(o));
+                    } catch (IOException ex) {
+                        throw new RedisobjectsException(ex);
+                    }
+                }
+
+                @Override
+                public Boolean result(Response<Long> responses) {
+                    Long l = responses.get();
+                    return null != l && l > 0;
+                }
+            });
+        }
+
+        /**
+         * Test if all objects are in the set.
+         *
+         * @param c objects
+         * @return future of the test
+         */
+        public CompletableFuture<Boolean> containsAll(final Collection<?> c) {
+            return pipelinedAsync(new AsyncWork<List<Response<Boolean>>, Boolean>() {
+
+                @Override
+                public List<Response<Boolean>> work(Pipeline pipeline) {
+                    List<byte[]> members = new ArrayList<>();
+                    try {
+                        for (Object o : c) {
+                            members.add(valueToBytes((V) o));
+                        }
+                    } catch (IOException ex) {
+                        throw new RedisobjectsException(ex);
+                    }
+                    List<Response<Boolean>> exists = new ArrayList<>();
+                    for (byte[] member : members) {
+                        exists.add(pipeline.sismember(SafeEncoder.encode(name), member));
+                    }
+                    return exists;
+                }
+
+                @Override
+                public Boolean result(List<Response<Boolean>> responses) {
+                    for (Response<Boolean> exists : responses) {
+                        if (!Boolean.TRUE.equals(exists.get())) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            });
+        }
+
+        /**
+         * Add objects with variadic SADD, in chunks sent in one transaction.
+         *
+         * @param c objects
+         * @return future of the addition (true if the set changed)
+         */
+        public CompletableFuture<Boolean> addAll(final Collection<? extends V> c) {
+            return pipelinedAsync(new AsyncWork<List<Response<Long>>, Boolean>() {
+
+                @Override
+                public List<Response<Long>> work(Pipeline pipeline) {
+                    List<byte[][]> chunks = valuesToChunks(c, chunkSize);
+                    List<Response<Long>> added = new ArrayList<>();
+                    if (chunks.isEmpty()) {
+                        return added;
+                    }
+                    pipeline.multi();
+                    for (byte[][] chunk : chunks) {
+                        added.add(pipeline.sadd(SafeEncoder.encode(name), chunk));
+                    }
+                    pipeline.exec();
+                    return added;
+                }
+
+                @Override
+                public Boolean result(List<Response<Long>> responses) {
+                    return changed(responses);
+                }
+            });
+        }
+
+        /**
+         * Retain objects on the server, as {@link RedisSet#retainAll}.
+         *
+         * @param c objects
+         * @return future of the retention (true if the set changed)
+         */
+        public CompletableFuture<Boolean> retainAll(final Collection<?> c) {
+            return pipelinedAsync(new AsyncWork<List<Response<Long>>, Boolean>() {
+
+                @Override
+                public List<Response<Long>> work(Pipeline pipeline) {
+                    List<byte[][]> chunks = valuesToChunks(c, chunkSize);
+                    byte[] key = SafeEncoder.encode(name);
+                    byte[] tmp = SafeEncoder.encode(tmpKey());
+                    pipeline.multi();
+                    Response<Long> before = pipeline.scard(key);
+                    for (byte[][] chunk : chunks) {
+                        pipeline.sadd(tmp, chunk);
+                    }
+                    Response<Long> after = pipeline.sinterstore(key, key, tmp);
+                    pipeline.del(tmp);
+                    pipeline.exec();
+                    return Arrays.asList(before, after);
+                }
+
+                @Override
+                public Boolean result(List<Response<Long>> responses) {
+                    return !responses.get(0).get().equals(responses.get(1).get());
+                }
+            });
+        }
+
+        /**
+         * Remove objects with variadic SREM, in chunks sent in one
+         * transaction.
+         *
+         * @param c objects
+         * @return future of the removal (true if the set changed)
+         */
+        public CompletableFuture<Boolean> removeAll(final Collection<?> c) {
+            return pipelinedAsync(new AsyncWork<List<Response<Long>>, Boolean>() {
+
+                @Override
+                public List<Response<Long>> work(Pipeline pipeline) {
+                    List<byte[][]> chunks = valuesToChunks(c, chunkSize);
+                    List<Response<Long>> removed = new ArrayList<>();
+                    if (chunks.isEmpty()) {
+                        return removed;
+                    }
+                    pipeline.multi();
+                    for (byte[][] chunk : chunks) {
+                        removed.add(pipeline.srem(SafeEncoder.encode(name), chunk));
+                    }
+                    pipeline.exec();
+                    return removed;
+                }
+
+                @Override
+                public Boolean result(List<Response<Long>> responses) {
+                    return changed(responses);
+                }
+            });
+        }
+
+        /**
+         * Size of the set.
+         *
+         * @return future of the size
+         */
+        public CompletableFuture<Integer> size() {
+            return pipelinedAsync(new AsyncWork<Response<Long>, Integer>() {
+
+                @Override
+                public Response<Long> work(Pipeline pipeline) {
+                    return pipeline.scard(SafeEncoder.encode(name));
+                }
+
+                @Override
+                public Integer result(Response<Long> responses) {
+                    Long l = responses.get();
+                    return null == l ? 0 : l.intValue();
+                }
+            });
+        }
+
+        /**
+         * Remove all objects.
+         *
+         * @return future completed when the set is removed
+         */
+        public CompletableFuture<Void> clear() {
+            return pipelinedAsync(new AsyncWork<Response<Long>, Void>() {
+
+                @Override
+                public Response<Long> work(Pipeline pipeline) {
+                    return pipeline.del(SafeEncoder.encode(name));
+                }
+
+                @Override
+                public Void result(Response<Long> responses) {
+                    responses.get();
+                    return null;
+                }
+            });
+        }
+    }
 }
@@ -1,18 +1,29 @@
 package org.redis.objects;
 
 import java.io.IOException;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import lombok.experimental.Builder;
 import org.redis.objects.exceptions.RedisobjectsException;
+import org.redis.objects.metrics.Metrics;
 import org.redis.objects.serializer.Serializer;
+import redis.clients.jedis.Client;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.Transaction;
+import redis.clients.jedis.ZParams;
 import redis.clients.util.SafeEncoder;
 
 /**
@@ -23,13 +34,78 @@ import redis.clients.util.SafeEncoder;
  */
 public class RedisSortedSet<V extends Scoreable> extends RedisObject<V, V> implements Set<V> {
 
+    private static final LuaScript POLL_FIRST = new LuaScript(
+            "local res = redis.call('zrange', KEYS[1], 0, 0)\n"
+            + "if res[1] then redis.call('zrem', KEYS[1], res[1]) end\n"
+            + "return res[1]");
+
+    private static final LuaScript POLL_LAST = new LuaScript(
+            "local res = redis.call('zrevrange', KEYS[1], 0, 0)\n"
+            + "if res[1] then redis.call('zrem', KEYS[1], res[1]) end\n"
+            + "return res[1]");
+
+    private final int pageSize;
+
+    private final int chunkSize;
+
+    /**
+     * Write-behind buffer (null if disabled).
+     */
+    private final WriteBuffer<V, Double> writeBuffer;
+
+    private final Async async = new Async();
+
     public RedisSortedSet(final JedisPool jedisPool, final String name) {
-        this(jedisPool, name, null, null, null, null);
+        this(jedisPool, name, null, null, null, null, null, null, null, null, null, null, null, null);
     }
-    
-    @Builder
+
+    /**
+     * Create Redis sorted set with the options of the first versions (other
+     * options are set with the builder).
+     *
+     * @param jedisPool Jedis pool
+     * @param name name of the sorted set in Redis
+     * @param syncImmediate sync pipeline after each write
+     * @param maxWithoutSync max writes before pipeline sync
+     * @param delayBeforeSync delay before pipeline sync (ms)
+     * @param serializer serializer (default: Kryo)
+     */
     public RedisSortedSet(final JedisPool jedisPool, final String name, Boolean syncImmediate, Integer maxWithoutSync, Integer delayBeforeSync, Serializer serializer) {
-        super(jedisPool, name, syncImmediate, maxWithoutSync, delayBeforeSync, serializer);
+        this(jedisPool, name, syncImmediate, maxWithoutSync, delayBeforeSync, null, serializer, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * Create Redis sorted set.
+     *
+     * @param jedisPool Jedis pool
+     * @param name name of the sorted set in Redis
+     * @param syncImmediate sync pipeline after each write
+     * @param maxWithoutSync max writes before pipeline sync
+     * @param delayBeforeSync delay before pipeline sync (ms)
+     * @param pipelines number of concurrent write pipelines (default: 1)
+     * @param serializer serializer (default: Kryo)
+     * @param pageSize number of members fetched per page by iterators
+     * (default: 100)
+     * @param chunkSize max members per chunk of bulk reads (default: 1000)
+     * @param writeBehind hold writes and send only the last state of each
+     * member, with one ZREM and one ZADD of all the members, when the pipeline
+     * would be synced
+     * (default: false)
+     * @param metrics metrics (default: none)
+     * @param flushPolicy policy syncing write pipelines (default: thresholds
+     * of maxWithoutSync and delayBeforeSync)
+     * @param pipelineManager pipeline manager shared with other objects
+     * (default: pipeline manager of the object, built with pipelines and
+     * flushPolicy)
+     * @param nodes nodes serving the keys of the object, in place of
+     * jedisPool (default: none)
+     */
+    @Builder
+    public RedisSortedSet(final JedisPool jedisPool, final String name, Boolean syncImmediate, Integer maxWithoutSync, Integer delayBeforeSync, Integer pipelines, Serializer serializer, Integer pageSize, Integer chunkSize, Boolean writeBehind, Metrics metrics, FlushPolicy flushPolicy, PipelineManager pipelineManager, RedisNodes nodes) {
+        super(jedisPool, name, syncImmediate, maxWithoutSync, delayBeforeSync, pipelines, serializer, null, null, metrics, flushPolicy, pipelineManager, nodes);
+        this.pageSize = null == pageSize ? PageIterator.DEFAULT_PAGE_SIZE : pageSize;
+        this.chunkSize = null == chunkSize ? ChunkedRead.DEFAULT_CHUNK_SIZE : chunkSize;
+        this.writeBuffer = null != writeBehind && writeBehind ? new SortedSetWriteBuffer() : null;
     }
 
     /**
@@ -79,21 +155,78 @@ public class RedisSortedSet<V extends Scoreable> extends RedisObject<V, V> imple
     }
 
     /**
-     * {@inheritDoc}
+     * Iterate over the sorted set by ascending score: members are fetched and
+     * deserialized page by page.
+     *
+     * @return iterator
      */
     @Override
     public Iterator<V> iterator() {
-        return run(new Work<Iterator<V>>() {
+        return new SortedSetPageIterator() {
+
+            @Override
+            protected Collection<byte[]> fetch(Jedis jedis, long offset, int count) {
+                return jedis.zrange(SafeEncoder.encode(name), offset, offset + count - 1);
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object[] toArray() {
+        return toList().toArray();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> T[] toArray(final T[] a) {
+        return toList().toArray(a);
+    }
+
+    private List<V> toList() {
+        List<V> list = new ArrayList<>();
+        Iterator<V> it = iterator();
+        while (it.hasNext()) {
+            list.add(it.next());
+        }
+        return list;
+    }
+
+    /**
+     * Get the object with the lowest score.
+     *
+     * @return object
+     * @throws NoSuchElementException if the sorted set is empty
+     */
+    public V first() {
+        List<V> res = range(0, 1);
+        if (res.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return res.get(0);
+    }
+
+    /**
+     * Get the object with the highest score.
+     *
+     * @return object
+     * @throws NoSuchElementException if the sorted set is empty
+     */
+    public V last() {
+        return run(new Work<V>() {
 
             @Override
-            public Iterator<V> work(Jedis jedis) {
+            public V work(Jedis jedis) {
                 try {
-                    List<V> list = new ArrayList<>();
-                    Set<byte[]> res = jedis.zrange(SafeEncoder.encode(name), 0, -1);
-                    for (byte[] bytes : res) {
-                        list.add(bytesToValue(bytes));
+                    Set<byte[]> res = jedis.zrevrange(SafeEncoder.encode(name), 0, 0);
+                    if (res.isEmpty()) {
+                        throw new NoSuchElementException();
                     }
-                    return list.iterator();
+                    return bytesToValue(res.iterator().next());
                 } catch (IOException | ClassNotFoundException ex) {
                     throw new RedisobjectsException(ex);
                 }
@@ -102,21 +235,34 @@ public class RedisSortedSet<V extends Scoreable> extends RedisObject<V, V> imple
     }
 
     /**
-     * {@inheritDoc}
+     * Remove and return the object with the lowest score.
+     *
+     * @return object or null if the sorted set is empty
      */
-    @Override
-    public Object[] toArray() {
-        return run(new Work<Object[]>() {
+    public V pollFirst() {
+        return poll(POLL_FIRST);
+    }
+
+    /**
+     * Remove and return the object with the highest score.
+     *
+     * @return object or null if the sorted set is empty
+     */
+    public V pollLast() {
+        return poll(POLL_LAST);
+    }
+
+    private V poll(final LuaScript script) {
+        return run(new Work<V>() {
 
             @Override
-            public Object[] work(Jedis jedis) {
+            public V work(Jedis jedis) {
                 try {
-                    List<V> list = new ArrayList<>();
-                    Set<byte[]> res = jedis.zrange(SafeEncoder.encode(name), 0, -1);
-                    for (byte[] bytes : res) {
-                        list.add(bytesToValue(bytes));
+                    byte[] bytes = (byte[]) script.eval(jedis, Collections.singletonList(SafeEncoder.encode(name)), Collections.<byte[]>emptyList());
+                    if (null == bytes) {
+                        return null;
                     }
-                    return list.toArray();
+                    return bytesToValue(bytes);
                 } catch (IOException | ClassNotFoundException ex) {
                     throw new RedisobjectsException(ex);
                 }
@@ -125,21 +271,44 @@ public class RedisSortedSet<V extends Scoreable> extends RedisObject<V, V> imple
     }
 
     /**
-     * {@inheritDoc}
+     * Get the rank of an object (0 for the lowest score).
+     *
+     * @param o object
+     * @return rank or null if the object is not in the sorted set
      */
-    @Override
-    public <T> T[] toArray(final T[] a) {
-        return run(new Work<T[]>() {
+    public Long rank(final V o) {
+        return run(new Work<Long>() {
+
+            @Override
+            public Long work(Jedis jedis) {
+                try {
+                    return jedis.zrank(SafeEncoder.encode(name), valueToBytes(o));
+                } catch (IOException ex) {
+                    throw new RedisobjectsException(ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Get objects by rank, ordered by ascending score.
+     *
+     * @param offset rank of the first object
+     * @param count max number of objects
+     * @return objects
+     */
+    public List<V> range(final long offset, final int count) {
+        return run(new Work<List<V>>() {
 
             @Override
-            public T[] work(Jedis jedis) {
+            public List<V> work(Jedis jedis) {
                 try {
                     List<V> list = new ArrayList<>();
-                    Set<byte[]> res = jedis.zrange(SafeEncoder.encode(name), 0, -1);
+                    Set<byte[]> res = jedis.zrange(SafeEncoder.encode(name), offset, offset + count - 1);
                     for (byte[] bytes : res) {
                         list.add(bytesToValue(bytes));
                     }
-                    return list.toArray(a);
+                    return list;
                 } catch (IOException | ClassNotFoundException ex) {
                     throw new RedisobjectsException(ex);
                 }
@@ -148,13 +317,85 @@ public class RedisSortedSet<V extends Scoreable> extends RedisObject<V, V> imple
     }
 
     /**
-     * Add object (WARNING: always returning true).
+     * View of the objects with a score strictly lower than toScore.
+     *
+     * @param toScore high score (exclusive)
+     * @return objects
+     */
+    public Set<V> headSet(double toScore) {
+        return headSet(toScore, false);
+    }
+
+    /**
+     * View of the objects with a score lower than toScore.
+     *
+     * @param toScore high score
+     * @param inclusive true if toScore is included
+     * @return objects
+     */
+    public Set<V> headSet(double toScore, boolean inclusive) {
+        return new ScoreRange(Double.NEGATIVE_INFINITY, true, toScore, inclusive);
+    }
+
+    /**
+     * View of the objects with a score greater than or equal to fromScore.
+     *
+     * @param fromScore low score (inclusive)
+     * @return objects
+     */
+    public Set<V> tailSet(double fromScore) {
+        return tailSet(fromScore, true);
+    }
+
+    /**
+     * View of the objects with a score greater than fromScore.
+     *
+     * @param fromScore low score
+     * @param inclusive true if fromScore is included
+     * @return objects
+     */
+    public Set<V> tailSet(double fromScore, boolean inclusive) {
+        return new ScoreRange(fromScore, inclusive, Double.POSITIVE_INFINITY, true);
+    }
+
+    /**
+     * View of the objects with a score from fromScore (inclusive) to toScore
+     * (exclusive).
+     *
+     * @param fromScore low score (inclusive)
+     * @param toScore high score (exclusive)
+     * @return objects
+     */
+    public Set<V> subSet(double fromScore, double toScore) {
+        return subSet(fromScore, true, toScore, false);
+    }
+
+    /**
+     * View of the objects with a score between fromScore and toScore.
+     *
+     * @param fromScore low score
+     * @param fromInclusive true if fromScore is included
+     * @param toScore high score
+     * @param toInclusive true if toScore is included
+     * @return objects
+     */
+    public Set<V> subSet(double fromScore, boolean fromInclusive, double toScore, boolean toInclusive) {
+        return new ScoreRange(fromScore, fromInclusive, toScore, toInclusive);
+    }
+
+    /**
+     * Add object (WARNING: always returning true, the change is returned by
+     * {@link Async#add} without blocking).
      *
      * @param e object
      * @return true
      */
     @Override
     public boolean add(final V e) {
+        if (null != writeBuffer) {
+            writeBuffer.put(e, e.score());
+            return true;
+        }
         return pipelined(new PipelinedWork<Boolean>() {
 
             @Override
@@ -170,12 +411,17 @@ public class RedisSortedSet<V extends Scoreable> extends RedisObject<V, V> imple
     }
 
     /**
-     * Remove object (WARNING: always returning true).
+     * Remove object (WARNING: always returning true, the change is returned
+     * by {@link Async#remove} without blocking).
      *
      * @return true
      */
     @Override
     public boolean remove(final Object o) {
+        if (null != writeBuffer) {
+            writeBuffer.remove((V) o);
+            return true;
+        }
         return pipelined(new PipelinedWork<Boolean>() {
 
             @Override
@@ -191,58 +437,105 @@ public class RedisSortedSet<V extends Scoreable> extends RedisObject<V, V> imple
     }
 
     /**
-     * {@inheritDoc}
+     * Test if all objects are in the sorted set, checking them in chunks sent over one
+     * connection.
+     *
+     * @param c objects
+     * @return true if all objects are in the sorted set
      */
     @Override
     public boolean containsAll(final Collection<?> c) {
-        return run(new Work<Boolean>() {
+        return run(new ChunkedRead<Object>(c, chunkSize) {
 
             @Override
-            public Boolean work(Jedis jedis) {
-                try {
-                    for (Object o : c) {
-                        Double score = jedis.zscore(SafeEncoder.encode(name), valueToBytes((V) o));
-                        if (null == score) {
-                            return false;
-                        }
-                    }
-                    return true;
-                } catch (IOException ex) {
-                    throw new RedisobjectsException(ex);
+            protected void send(Client client, List<Object> chunk) throws IOException {
+                List<byte[]> members = new ArrayList<>();
+                for (Object o : chunk) {
+                    members.add(valueToBytes((V) o));
+                }
+                for (byte[] member : members) {
+                    client.zscore(SafeEncoder.encode(name), member);
                 }
             }
+
+            @Override
+            protected boolean receive(Client client, List<Object> chunk) {
+                boolean res = true;
+                for (int i = 0; i < chunk.size(); i++) {
+                    byte[] score = client.getBinaryBulkReply();
+                    res &= null != score;
+                }
+                return res;
+            }
         });
     }
 
     /**
-     * Add objects (WARNING: always returning true).
+     * Add objects with variadic ZADD, in chunks sent in one transaction.
      *
      * @param c objects
-     * @return true
+     * @return true if the sorted set changed (members added, not scores
+     * updated)
      */
     @Override
     public boolean addAll(final Collection<? extends V> c) {
+        if (c.isEmpty()) {
+            return false;
+        }
         return run(new Work<Boolean>() {
 
             @Override
             public Boolean work(Jedis jedis) {
-                Transaction tr = jedis.multi();
-                try {
-                    for (V value : c) {
-                        tr.zadd(SafeEncoder.encode(name), ((Scoreable) value).score(), valueToBytes((V) value));
-                    }
-                    tr.exec();
-                } catch (IOException ex) {
-                    tr.discard();
-                    throw new RedisobjectsException(ex);
+                List<Map<byte[], Double>> chunks = scoredChunks(c);
+                // Jedis transactions have no binary ZADD of several members
+                ObjectsPipeline pipeline = new ObjectsPipeline(jedis);
+                pipeline.multi();
+                List<Response<Long>> added = new ArrayList<>();
+                for (Map<byte[], Double> chunk : chunks) {
+                    added.add(pipeline.zadd(SafeEncoder.encode(name), chunk));
                 }
-                return true;
+                Response<List<Object>> exec = pipeline.exec();
+                pipeline.sync();
+                exec.get();
+                boolean changed = false;
+                for (Response<Long> res : added) {
+                    changed |= res.get() > 0;
+                }
+                return changed;
             }
         });
     }
 
     /**
-     * {@inheritDoc}
+     * Split objects in chunks of scores by serialized member.
+     *
+     * @param c objects
+     * @return chunks
+     */
+    private List<Map<byte[], Double>> scoredChunks(Collection<? extends V> c) {
+        List<Map<byte[], Double>> chunks = new ArrayList<>();
+        try {
+            Map<byte[], Double> chunk = null;
+            for (V value : c) {
+                if (null == chunk || chunk.size() == chunkSize) {
+                    chunk = new HashMap<>();
+                    chunks.add(chunk);
+                }
+                chunk.put(valueToBytes(value), value.score());
+            }
+        } catch (IOException ex) {
+            throw new RedisobjectsException(ex);
+        }
+        return chunks;
+    }
+
+    /**
+     * Retain objects on the server: objects are loaded in a temporary set,
+     * intersected with the sorted set by ZINTERSTORE in one transaction,
+     * keeping scores (objects are compared by their serialized form).
+     *
+     * @param c objects
+     * @return true if the sorted set changed
      */
     @Override
     public boolean retainAll(final Collection<?> c) {
@@ -250,59 +543,144 @@ public class RedisSortedSet<V extends Scoreable> extends RedisObject<V, V> imple
 
             @Override
             public Boolean work(Jedis jedis) {
-                boolean res = false;
-                Set<byte[]> list = jedis.zrange(SafeEncoder.encode(name), 0, -1);
+                List<byte[][]> chunks = valuesToChunks(c, chunkSize);
+                byte[] key = SafeEncoder.encode(name);
+                byte[] tmp = SafeEncoder.encode(tmpKey());
                 Transaction tr = jedis.multi();
-                try {
-                    for (byte[] bytes : list) {
-                        V value = (V) bytesToValue(bytes);
-                        if (!c.contains(value)) {
-                            tr.zrem(SafeEncoder.encode(name), bytes);
-                            res = true;
-                        }
-                    }
-                    tr.exec();
-                } catch (IOException | ClassNotFoundException ex) {
-                    tr.discard();
-                    throw new RedisobjectsException(ex);
+                Response<Long> before = tr.zcard(key);
+                for (byte[][] chunk : chunks) {
+                    tr.sadd(tmp, chunk);
                 }
-                return res;
+                Response<Long> after = tr.zinterstore(key, new ZParams().weightsByDouble(1, 0), key, tmp);
+                tr.del(tmp);
+                tr.exec();
+                return !before.get().equals(after.get());
             }
         });
     }
 
     /**
-     * Remove objects (WARNING: always returning true).
+     * Remove objects with variadic ZREM, in chunks sent in one transaction.
      *
      * @param c objects
-     * @return true
+     * @return true if the sorted set changed
      */
     @Override
     public boolean removeAll(final Collection<?> c) {
+        if (c.isEmpty()) {
+            return false;
+        }
         return run(new Work<Boolean>() {
 
             @Override
             public Boolean work(Jedis jedis) {
+                List<byte[][]> chunks = valuesToChunks(c, chunkSize);
                 Transaction tr = jedis.multi();
-                try {
-                    for (Object object : c) {
-                        tr.zrem(SafeEncoder.encode(name), valueToBytes((V) object));
-                    }
-                    tr.exec();
-                } catch (IOException ex) {
-                    tr.discard();
-                    throw new RedisobjectsException(ex);
+                List<Response<Long>> removed = new ArrayList<>();
+                for (byte[][] chunk : chunks) {
+                    removed.add(tr.zrem(SafeEncoder.encode(name), chunk));
                 }
+                tr.exec();
+                return changed(removed);
+            }
+        });
+    }
+
+    private static boolean changed(List<Response<Long>> counts) {
+        for (Response<Long> count : counts) {
+            if (count.get() > 0) {
                 return true;
             }
+        }
+        return false;
+    }
+
+    /**
+     * Store the union of the sorted set and other sorted sets with
+     * ZUNIONSTORE, summing scores: members are never transferred.
+     *
+     * @param destination name of the result in Redis (replaced)
+     * @param others other sorted sets (of the same node, e.g. with a common hash tag)
+     * @return result, configured as the sorted set
+     * @throws IllegalArgumentException if the destination or other sorted
+     * sets are not served by the node of the sorted set
+     */
+    public RedisSortedSet<V> union(final String destination, final RedisSortedSet<?>... others) {
+        return union(destination, new ZParams(), others);
+    }
+
+    /**
+     * Store the union of the sorted set and other sorted sets with
+     * ZUNIONSTORE: members are never transferred.
+     *
+     * @param destination name of the result in Redis (replaced)
+     * @param params weights (the sorted set first) and aggregate of scores
+     * @param others other sorted sets (of the same node, e.g. with a common hash tag)
+     * @return result, configured as the sorted set
+     * @throws IllegalArgumentException if the destination or other sorted
+     * sets are not served by the node of the sorted set
+     */
+    public RedisSortedSet<V> union(final String destination, final ZParams params, final RedisSortedSet<?>... others) {
+        final byte[][] keys = namesOf(destination, others);
+        return store(destination, new Work<Long>() {
+
+            @Override
+            public Long work(Jedis jedis) {
+                return jedis.zunionstore(SafeEncoder.encode(destination), params, keys);
+            }
         });
     }
 
+    /**
+     * Store the intersection of the sorted set and other sorted sets with
+     * ZINTERSTORE, summing scores: members are never transferred.
+     *
+     * @param destination name of the result in Redis (replaced)
+     * @param others other sorted sets (of the same node, e.g. with a common hash tag)
+     * @return result, configured as the sorted set
+     * @throws IllegalArgumentException if the destination or other sorted
+     * sets are not served by the node of the sorted set
+     */
+    public RedisSortedSet<V> intersect(final String destination, final RedisSortedSet<?>... others) {
+        return intersect(destination, new ZParams(), others);
+    }
+
+    /**
+     * Store the intersection of the sorted set and other sorted sets with
+     * ZINTERSTORE: members are never transferred.
+     *
+     * @param destination name of the result in Redis (replaced)
+     * @param params weights (the sorted set first) and aggregate of scores
+     * @param others other sorted sets (of the same node, e.g. with a common hash tag)
+     * @return result, configured as the sorted set
+     * @throws IllegalArgumentException if the destination or other sorted
+     * sets are not served by the node of the sorted set
+     */
+    public RedisSortedSet<V> intersect(final String destination, final ZParams params, final RedisSortedSet<?>... others) {
+        final byte[][] keys = namesOf(destination, others);
+        return store(destination, new Work<Long>() {
+
+            @Override
+            public Long work(Jedis jedis) {
+                return jedis.zinterstore(SafeEncoder.encode(destination), params, keys);
+            }
+        });
+    }
+
+    private RedisSortedSet<V> store(String destination, Work<Long> work) {
+        run(work);
+        return new RedisSortedSet<>(jedisPool, destination, syncImmediate, null, null, null, serializer, pageSize, chunkSize, null != writeBuffer, metrics, null, pipelineManager, nodes);
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void clear() {
+        if (null != writeBuffer) {
+            writeBuffer.clear();
+            return;
+        }
         pipelined(new PipelinedWork<Boolean>() {
 
             @Override
@@ -312,4 +690,449 @@ public class RedisSortedSet<V extends Scoreable> extends RedisObject<V, V> imple
             }
         });
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void flushWrites() {
+        if (null != writeBuffer) {
+            writeBuffer.flush();
+        }
+    }
+
+    /**
+     * Write-behind buffer sending held writes with DEL, ZREM and ZADD (scores
+     * are computed when members are added).
+     */
+    private class SortedSetWriteBuffer extends WriteBuffer<V, Double> {
+
+        SortedSetWriteBuffer() {
+            super(RedisSortedSet.this);
+        }
+
+        @Override
+        protected void write(Pipeline pipeline, boolean cleared, Map<V, Double> puts, List<V> removes) throws IOException {
+            if (cleared) {
+                pipeline.del(SafeEncoder.encode(name));
+            }
+            if (!removes.isEmpty()) {
+                byte[][] members = new byte[removes.size()][];
+                for (int i = 0; i < members.length; i++) {
+                    members[i] = valueToBytes(removes.get(i));
+                }
+                pipeline.zrem(SafeEncoder.encode(name), members);
+            }
+            if (!puts.isEmpty()) {
+                Map<byte[], Double> scoreMembers = new HashMap<>();
+                for (Map.Entry<V, Double> en : puts.entrySet()) {
+                    scoreMembers.put(valueToBytes(en.getKey()), en.getValue());
+                }
+                ObjectsPipeline.zadd(pipeline, SafeEncoder.encode(name), scoreMembers);
+            }
+        }
+    }
+
+    private void remove(final byte[] bytes) {
+        pipelined(new PipelinedWork<Boolean>() {
+
+            @Override
+            public Boolean work(Pipeline pipeline) {
+                pipeline.zrem(SafeEncoder.encode(name), bytes);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Page iterator over members, removing them with pipelined ZREM.
+     */
+    private abstract class SortedSetPageIterator extends PageIterator<V> {
+
+        SortedSetPageIterator() {
+            super(RedisSortedSet.this, pageSize);
+        }
+
+        @Override
+        protected V convert(byte[] raw) throws IOException, ClassNotFoundException {
+            return bytesToValue(raw);
+        }
+
+        @Override
+        protected void remove(byte[] raw) {
+            RedisSortedSet.this.remove(raw);
+        }
+    }
+
+    /**
+     * Live view of the members with a score in a range, paged with
+     * ZRANGEBYSCORE.
+     */
+    private class ScoreRange extends AbstractSet<V> {
+
+        private final double from;
+
+        private final boolean fromInclusive;
+
+        private final double to;
+
+        private final boolean toInclusive;
+
+        private final byte[] min;
+
+        private final byte[] max;
+
+        ScoreRange(double from, boolean fromInclusive, double to, boolean toInclusive) {
+            this.from = from;
+            this.fromInclusive = fromInclusive;
+            this.to = to;
+            this.toInclusive = toInclusive;
+            this.min = bound(from, fromInclusive);
+            this.max = bound(to, toInclusive);
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new SortedSetPageIterator() {
+
+                @Override
+                protected Collection<byte[]> fetch(Jedis jedis, long offset, int count) {
+                    return jedis.zrangeByScore(SafeEncoder.encode(name), min, max, (int) offset, count);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return run(new Work<Integer>() {
+
+                @Override
+                public Integer work(Jedis jedis) {
+                    Long l = jedis.zcount(SafeEncoder.encode(name), min, max);
+                    return null == l ? 0 : l.intValue();
+                }
+            });
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Scoreable)) {
+                return false;
+            }
+            double score = ((Scoreable) o).score();
+            if (score < from || (score == from && !fromInclusive) || score > to || (score == to && !toInclusive)) {
+                return false;
+            }
+            return RedisSortedSet.this.contains(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return contains(o) && RedisSortedSet.this.remove(o);
+        }
+    }
+
+    private static byte[] bound(double score, boolean inclusive) {
+        String res;
+        if (Double.isInfinite(score)) {
+            res = score > 0 ? "+inf" : "-inf";
+        } else {
+            res = Double.toString(score);
+        }
+        return SafeEncoder.encode(inclusive ? res : "(" + res);
+    }
+
+    /**
+     * Asynchronous view of the sorted set: commands are sent with the write
+     * pipeline and futures are completed when it is synced.
+     *
+     * @return asynchronous view
+     */
+    public Async async() {
+        return async;
+    }
+
+    /**
+     * Asynchronous operations of the sorted set.
+     */
+    public class Async {
+
+        /**
+         * Test if object is in the sorted set.
+         *
+         * @param o object
+         * @return future of the test
+         */
+        public CompletableFuture<Boolean> contains(final V o) {
+            return pipelinedAsync(new AsyncWork<Response<Double>, Boolean>() {
+
+                @Override
+                public Response<Double> work(Pipeline pipeline) {
+                    try {
+                        return pipeline.zscore(SafeEncoder.encode(name), valueToBytes(o));
+                    } catch (IOException ex) {
+                        throw new RedisobjectsException(ex);
+                    }
+                }
+
+                @Override
+                public Boolean result(Response<Double> responses) {
+                    return null != responses.get();
+                }
+            });
+        }
+
+        /**
+         * Add object.
+         *
+         * @param o object
+         * @return future of the addition (true if the object was not in the sorted set)
+         */
+        public CompletableFuture<Boolean> add(final V o) {
+            return pipelinedAsync(new AsyncWork<Response<Long>, Boolean>() {
+
+                @Override
+                public Response<Long> work(Pipeline pipeline) {
+                    try {
+                        return pipeline.zadd(SafeEncoder.encode(name), o.score(), valueToBytes(o));
+                    } catch (IOException ex) {
+                        throw new RedisobjectsException(ex);
+                    }
+                }
+
+                @Override
+                public Boolean result(Response<Long> responses) {
+                    Long l = responses.get();
+                    return null != l && l > 0;
+                }
+            });
+        }
+
+        /**
+         * Remove object.
+         *
+         * @param o object
+         * @return future of the removal (true if the object was in the sorted set)
+         */
+        public CompletableFuture<Boolean> remove(final V o) {
+            return pipelinedAsync(new AsyncWork<Response<Long>, Boolean>() {
+
+                @Override
+                public Response<Long> work(Pipeline pipeline) {
+                    try {
+                        return pipeline.zrem(SafeEncoder.encode(name), valueToBytes(o));
+                    } catch (IOException ex) {
+                        throw new RedisobjectsException(ex);
+                    }
+                }
+
+                @Override
+                public Boolean result(Response<Long> responses) {
+                    Long l = responses.get();
+                    return null != l && l > 0;
+                }
+            });
+        }
+
+        /**
+         * Test if all objects are in the sorted set.
+         *
+         * @param c objects
+         * @return future of the test
+         */
+        public CompletableFuture<Boolean> containsAll(final Collection<?> c) {
+            return pipelinedAsync(new AsyncWork<List<Response<Double>>, Boolean>() {
+
+                @Override
+                public List<Response<Double>> work(Pipeline pipeline) {
+                    List<byte[]> members = new ArrayList<>();
+                    try {
+                        for (Object o : c) {
+                            members.add(valueToBytes((V) o));
+                        }
+                    } catch (IOException ex) {
+                        throw new RedisobjectsException(ex);
+                    }
+                    List<Response<Double>> scores = new ArrayList<>();
+                    for (byte[] member : members) {
+                        scores.add(pipeline.zscore(SafeEncoder.encode(name), member));
+                    }
+                    return scores;
+                }
+
+                @Override
+                public Boolean result(List<Response<Double>> responses) {
+                    for (Response<Double> score : responses) {
+                        if (null == score.get()) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            });
+        }
+
+        /**
+         * Add objects with variadic ZADD, in chunks sent in one transaction.
+         *
+         * @param c objects
+         * @return future of the addition (true if members were added)
+         */
+        public CompletableFuture<Boolean> addAll(final Collection<? extends V> c) {
+            return pipelinedAsync(new AsyncWork<List<Response<Long>>, Boolean>() {
+
+                @Override
+                public List<Response<Long>> work(Pipeline pipeline) {
+                    List<Map<byte[], Double>> chunks = scoredChunks(c);
+                    List<Response<Long>> added = new ArrayList<>();
+                    if (chunks.isEmpty()) {
+                        return added;
+                    }
+                    pipeline.multi();
+                    for (Map<byte[], Double> chunk : chunks) {
+                        added.add(ObjectsPipeline.zadd(pipeline, SafeEncoder.encode(name), chunk));
+                    }
+                    pipeline.exec();
+                    return added;
+                }
+
+                @Override
+                public Boolean result(List<Response<Long>> responses) {
+                    return changed(responses);
+                }
+            });
+        }
+
+        /**
+         * Retain objects on the server, as {@link RedisSortedSet#retainAll}.
+         *
+         * @param c objects
+         * @return future of the retention (true if the sorted set changed)
+         */
+        public CompletableFuture<Boolean> retainAll(final Collection<?> c) {
+            return pipelinedAsync(new AsyncWork<List<Response<Long>>, Boolean>() {
+
+                @Override
+                public List<Response<Long>> work(Pipeline pipeline) {
+                    List<byte[][]> chunks = valuesToChunks(c, chunkSize);
+                    byte[] key = SafeEncoder.encode(name);
+                    byte[] tmp = SafeEncoder.encode(tmpKey());
+                    pipeline.multi();
+                    Response<Long> before = pipeline.zcard(key);
+                    for (byte[][] chunk : chunks) {
+                        pipeline.sadd(tmp, chunk);
+                    }
+                    Response<Long> after = pipeline.zinterstore(key, new ZParams().weightsByDouble(1, 0), key, tmp);
+                    pipeline.del(tmp);
+                    pipeline.exec();
+                    return Arrays.asList(before, after);
+                }
+
+                @Override
+                public Boolean result(List<Response<Long>> responses) {
+                    return !responses.get(0).get().equals(responses.get(1).get());
+                }
+            });
+        }
+
+        /**
+         * Remove objects with variadic ZREM, in chunks sent in one
+         * transaction.
+         *
+         * @param c objects
+         * @return future of the removal (true if the sorted set changed)
+         */
+        public CompletableFuture<Boolean> removeAll(final Collection<?> c) {
+            return pipelinedAsync(new AsyncWork<List<Response<Long>>, Boolean>() {
+
+                @Override
+                public List<Response<Long>> work(Pipeline pipeline) {
+                    List<byte[][]> chunks = valuesToChunks(c, chunkSize);
+                    List<Response<Long>> removed = new ArrayList<>();
+                    if (chunks.isEmpty()) {
+                        return removed;
+                    }
+                    pipeline.multi();
+                    for (byte[][] chunk : chunks) {
+                        removed.add(pipeline.zrem(SafeEncoder.encode(name), chunk));
+                    }
+                    pipeline.exec();
+                    return removed;
+                }
+
+                @Override
+                public Boolean result(List<Response<Long>> responses) {
+                    return changed(responses);
+                }
+            });
+        }
+
+        /**
+         * Size of the sorted set.
+         *
+         * @return future of the size
+         */
+        public CompletableFuture<Integer> size() {
+            return pipelinedAsync(new AsyncWork<Response<Long>, Integer>() {
+
+                @Override
+                public Response<Long> work(Pipeline pipeline) {
+                    return pipeline.zcard(SafeEncoder.encode(name));
+                }
+
+                @Override
+                public Integer result(Response<Long> responses) {
+                    Long l = responses.get();
+                    return null == l ? 0 : l.intValue();
+                }
+            });
+        }
+
+        /**
+         * Get the rank of an object (0 for the lowest score).
+         *
+         * @param o object
+         * @return future of the rank (null if the object is not in the sorted
+         * set)
+         */
+        public CompletableFuture<Long> rank(final V o) {
+            return pipelinedAsync(new AsyncWork<Response<Long>, Long>() {
+
+                @Override
+                public Response<Long> work(Pipeline pipeline) {
+                    try {
+                        return pipeline.zrank(SafeEncoder.encode(name), valueToBytes(o));
+                    } catch (IOException ex) {
+                        throw new RedisobjectsException(ex);
+                    }
+                }
+
+                @Override
+                public Long result(Response<Long> responses) {
+                    return responses.get();
+                }
+            });
+        }
+
+        /**
+         * Remove all objects.
+         *
+         * @return future completed when the sorted set is removed
+         */
+        public CompletableFuture<Void> clear() {
+            return pipelinedAsync(new AsyncWork<Response<Long>, Void>() {
+
+                @Override
+                public Response<Long> work(Pipeline pipeline) {
+                    return pipeline.del(SafeEncoder.encode(name));
+                }
+
+                @Override
+                public Void result(Response<Long> responses) {
+                    responses.get();
+                    return null;
+                }
+            });
+        }
+    }
 }
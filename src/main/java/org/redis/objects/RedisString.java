@@ -1,81 +1,245 @@
 package org.redis.objects;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
 import lombok.experimental.Builder;
 import org.redis.objects.exceptions.RedisobjectsException;
+import org.redis.objects.metrics.Metrics;
 import org.redis.objects.serializer.Serializer;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.util.SafeEncoder;
 
 /**
  * Redis string.
  *
+ * The string is stored in UTF-8: {@link #length()} reads the whole value to
+ * count UTF-16 chars, unless the string is built as ASCII only. Use
+ * {@link #byteLength()} (STRLEN) when the length in bytes is enough.
+ *
  * @author Mathieu MAST
  */
 public class RedisString extends RedisObject<String, String> implements CharSequence {
 
+    /**
+     * Default chunk size of streams (bytes).
+     */
+    public static final int DEFAULT_STREAM_CHUNK_SIZE = 64 * 1024;
+
+    private final Async async = new Async();
+
+    /**
+     * The string holds only ASCII chars (one byte per char).
+     */
+    private final boolean ascii;
+
     public RedisString(final JedisPool jedisPool, final String name) {
-        this(jedisPool, name, null, null, null, null);
+        this(jedisPool, name, null, null, null, null, null, null, null, null, null, null);
     }
-    
-    @Builder
+
+    /**
+     * Create Redis string with the options of the first versions (other
+     * options are set with the builder).
+     *
+     * @param jedisPool Jedis pool
+     * @param name key of the string in Redis
+     * @param syncImmediate sync pipeline after each write
+     * @param maxWithoutSync max writes before pipeline sync
+     * @param delayBeforeSync delay before pipeline sync (ms)
+     * @param serializer serializer (default: Kryo)
+     */
     public RedisString(final JedisPool jedisPool, final String name, Boolean syncImmediate, Integer maxWithoutSync, Integer delayBeforeSync, Serializer serializer) {
-        super(jedisPool, name, syncImmediate, maxWithoutSync, delayBeforeSync, serializer);
+        this(jedisPool, name, syncImmediate, maxWithoutSync, delayBeforeSync, null, serializer, null, null, null, null, null);
+    }
+
+    /**
+     * Create Redis string.
+     *
+     * @param jedisPool Jedis pool
+     * @param name key of the string in Redis
+     * @param syncImmediate sync pipeline after each write
+     * @param maxWithoutSync max writes before pipeline sync
+     * @param delayBeforeSync delay before pipeline sync (ms)
+     * @param pipelines number of concurrent write pipelines (default: 1)
+     * @param serializer serializer (default: Kryo)
+     * @param ascii the string holds only ASCII chars: length() is STRLEN and
+     * subSequence() reads only its bytes (default: false)
+     * @param metrics metrics (default: none)
+     * @param flushPolicy policy syncing write pipelines (default: thresholds
+     * of maxWithoutSync and delayBeforeSync)
+     * @param pipelineManager pipeline manager shared with other objects
+     * (default: pipeline manager of the object, built with pipelines and
+     * flushPolicy)
+     * @param nodes nodes serving the key of the string, in place of jedisPool
+     * (default: none)
+     */
+    @Builder
+    public RedisString(final JedisPool jedisPool, final String name, Boolean syncImmediate, Integer maxWithoutSync, Integer delayBeforeSync, Integer pipelines, Serializer serializer, Boolean ascii, Metrics metrics, FlushPolicy flushPolicy, PipelineManager pipelineManager, RedisNodes nodes) {
+        super(jedisPool, name, syncImmediate, maxWithoutSync, delayBeforeSync, pipelines, serializer, null, null, metrics, flushPolicy, pipelineManager, nodes);
+        this.ascii = null != ascii && ascii;
     }
 
     /**
      * {@inheritDoc}
+     *
+     * UTF-16 chars are counted on the UTF-8 bytes, without decoding the
+     * string, but the whole string is read: see {@link #byteLength()} (an
+     * ASCII string only runs STRLEN).
      */
     @Override
     public int length() {
+        if (ascii) {
+            return (int) byteLength();
+        }
         return run(new Work<Integer>() {
 
             @Override
             public Integer work(Jedis jedis) {
-                String res = jedis.get(name);
+                byte[] res = jedis.get(SafeEncoder.encode(name));
                 if (null == res) {
                     return 0;
-                } else {
-                    return res.length();
                 }
+                int length = 0;
+                for (byte b : res) {
+                    // continuation bytes are not counted, 4 bytes sequences are surrogate pairs
+                    if ((b & 0xC0) != 0x80) {
+                        length += (b & 0xF8) == 0xF0 ? 2 : 1;
+                    }
+                }
+                return length;
             }
         });
     }
 
     /**
-     * {@inheritDoc}
+     * Length of the string in UTF-8 bytes (STRLEN).
+     *
+     * @return length in bytes
      */
-    @Override
-    public char charAt(final int index) {
-        return run(new Work<Character>() {
+    public long byteLength() {
+        return run(new Work<Long>() {
 
             @Override
-            public Character work(Jedis jedis) {
-                String res = jedis.get(name);
-                if (null == res) {
-                    throw new RedisobjectsException("String not found in Redis");
-                } else {
-                    return res.charAt(index);
-                }
+            public Long work(Jedis jedis) {
+                return jedis.strlen(SafeEncoder.encode(name));
             }
         });
     }
 
     /**
      * {@inheritDoc}
+     *
+     * Only the beginning of the string, up to the char, is read.
+     */
+    @Override
+    public char charAt(final int index) {
+        return subSequence(index, index + 1).charAt(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Only the beginning of the string, up to the end of the subsequence, is
+     * read: a UTF-16 char is encoded with at most 3 UTF-8 bytes, so end chars
+     * fit in the first 3 * end + 1 bytes (the last char may be the first half
+     * of a surrogate pair). An ASCII string only reads the bytes of the
+     * subsequence.
      */
     @Override
     public CharSequence subSequence(final int start, final int end) {
+        if (start < 0 || end < start) {
+            throw new StringIndexOutOfBoundsException("start " + start + ", end " + end);
+        }
         return run(new Work<CharSequence>() {
 
             @Override
             public CharSequence work(Jedis jedis) {
-                String res = jedis.get(name);
-                if (null == res) {
+                if (ascii) {
+                    // GETRANGE of an empty range would read the whole string
+                    byte[] res = start == end ? new byte[0] : jedis.getrange(SafeEncoder.encode(name), start, end - 1);
+                    if (0 == res.length && !jedis.exists(SafeEncoder.encode(name))) {
+                        throw new RedisobjectsException("String not found in Redis");
+                    }
+                    if (res.length < end - start) {
+                        throw new StringIndexOutOfBoundsException("end " + end);
+                    }
+                    return new String(res, StandardCharsets.ISO_8859_1);
+                }
+                byte[] res = jedis.getrange(SafeEncoder.encode(name), 0, 3L * end);
+                if (0 == res.length && !jedis.exists(SafeEncoder.encode(name))) {
                     throw new RedisobjectsException("String not found in Redis");
-                } else {
-                    return res.subSequence(start, end);
                 }
+                // a truncated last sequence is decoded after the subsequence
+                return new String(res, StandardCharsets.UTF_8).substring(start, end);
+            }
+        });
+    }
+
+    /**
+     * Get bytes of the UTF-8 string (GETRANGE).
+     *
+     * @param start first byte (negative for an offset from the end)
+     * @param end last byte, inclusive (negative for an offset from the end)
+     * @return bytes
+     */
+    public byte[] getRange(final long start, final long end) {
+        return run(new Work<byte[]>() {
+
+            @Override
+            public byte[] work(Jedis jedis) {
+                return jedis.getrange(SafeEncoder.encode(name), start, end);
+            }
+        });
+    }
+
+    /**
+     * Overwrite bytes of the UTF-8 string (SETRANGE), padding with zero bytes
+     * if the string is shorter than offset.
+     *
+     * @param offset first byte
+     * @param bytes bytes
+     * @return this
+     */
+    public RedisString setRange(final long offset, final byte[] bytes) {
+        pipelined(new PipelinedWork<Boolean>() {
+
+            @Override
+            public Boolean work(Pipeline pipeline) {
+                pipeline.setrange(SafeEncoder.encode(name), offset, bytes);
+                return true;
+            }
+        });
+
+        return this;
+    }
+
+    /**
+     * Overwrite bytes of the UTF-8 string with a string (SETRANGE).
+     *
+     * @param offset first byte
+     * @param s string
+     * @return this
+     */
+    public RedisString setRange(final long offset, final String s) {
+        return setRange(offset, SafeEncoder.encode(s));
+    }
+
+    /**
+     * Replace the string (GETSET).
+     *
+     * @param s new string
+     * @return previous string (null if there was none)
+     */
+    public String getAndSet(final String s) {
+        return run(new Work<String>() {
+
+            @Override
+            public String work(Jedis jedis) {
+                return jedis.getSet(name, s);
             }
         });
     }
@@ -99,6 +263,81 @@ public class RedisString extends RedisObject<String, String> implements CharSequ
         return this;
     }
 
+    /**
+     * Append bytes to string stored in Redis.
+     *
+     * @param bytes bytes
+     * @return this
+     */
+    public RedisString append(final byte[] bytes) {
+        pipelined(new PipelinedWork<Boolean>() {
+
+            @Override
+            public Boolean work(Pipeline pipeline) {
+                pipeline.append(SafeEncoder.encode(name), bytes);
+                return true;
+            }
+        });
+
+        return this;
+    }
+
+    /**
+     * Open a stream reading the string by chunks of 64KB.
+     *
+     * @return input stream
+     */
+    public InputStream openInputStream() {
+        return openInputStream(DEFAULT_STREAM_CHUNK_SIZE);
+    }
+
+    /**
+     * Open a stream reading the string by chunks (GETRANGE), the next chunk
+     * being read while the current one is consumed.
+     *
+     * @param chunkSize size of the chunks (bytes)
+     * @return input stream
+     */
+    public InputStream openInputStream(final int chunkSize) {
+        return new RedisStringInputStream(this, name, chunkSize);
+    }
+
+    /**
+     * Open a stream replacing the string, written by chunks of 64KB.
+     *
+     * @return output stream
+     */
+    public OutputStream openOutputStream() {
+        return new RedisStringOutputStream(this, name, -1, DEFAULT_STREAM_CHUNK_SIZE);
+    }
+
+    /**
+     * Open a stream overwriting the string from an offset (pipelined
+     * SETRANGE by chunks of 64KB).
+     *
+     * @param offset first byte
+     * @return output stream
+     */
+    public OutputStream openOutputStream(final long offset) {
+        return openOutputStream(offset, DEFAULT_STREAM_CHUNK_SIZE);
+    }
+
+    /**
+     * Open a stream overwriting the string from an offset (pipelined
+     * SETRANGE by chunks). The string is written when the stream is flushed
+     * or closed.
+     *
+     * @param offset first byte
+     * @param chunkSize size of the chunks (bytes)
+     * @return output stream
+     */
+    public OutputStream openOutputStream(final long offset, final int chunkSize) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must be positive");
+        }
+        return new RedisStringOutputStream(this, name, offset, chunkSize);
+    }
+
     public RedisString clear() {
         pipelined(new PipelinedWork<Boolean>() {
 
@@ -132,4 +371,84 @@ public class RedisString extends RedisObject<String, String> implements CharSequ
             }
         });
     }
+
+    /**
+     * Asynchronous view of the string: commands are sent with the write
+     * pipeline and futures are completed when it is synced.
+     *
+     * @return asynchronous view
+     */
+    public Async async() {
+        return async;
+    }
+
+    /**
+     * Asynchronous operations of the string.
+     */
+    public class Async {
+
+        /**
+         * Get the string stored in Redis.
+         *
+         * @return future of the string
+         */
+        public CompletableFuture<String> get() {
+            return pipelinedAsync(new AsyncWork<Response<String>, String>() {
+
+                @Override
+                public Response<String> work(Pipeline pipeline) {
+                    return pipeline.get(name);
+                }
+
+                @Override
+                public String result(Response<String> responses) {
+                    String res = responses.get();
+                    return null == res ? "" : res;
+                }
+            });
+        }
+
+        /**
+         * Append to string stored in Redis.
+         *
+         * @param s string
+         * @return future completed when the string is appended
+         */
+        public CompletableFuture<Void> append(final String s) {
+            return pipelinedAsync(new AsyncWork<Response<Long>, Void>() {
+
+                @Override
+                public Response<Long> work(Pipeline pipeline) {
+                    return pipeline.append(name, s);
+                }
+
+                @Override
+                public Void result(Response<Long> responses) {
+                    responses.get();
+                    return null;
+                }
+            });
+        }
+
+        /**
+         * Remove the string.
+         *
+         * @return future completed when the string is removed
+         */
+        public CompletableFuture<Void> clear() {
+            return pipelinedAsync(new AsyncWork<Response<Long>, Void>() {
+
+                @Override
+                public Response<Long> work(Pipeline pipeline) {
+                    return pipeline.del(name);
+                }
+
+                @Override
+                public Void result(Response<Long> responses) {
+                    responses.get();
+                    return null;
+                }
+            });
+        }
+    }
 }
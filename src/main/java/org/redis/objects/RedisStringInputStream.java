@@ -0,0 +1,139 @@
+package org.redis.objects;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+import redis.clients.jedis.Jedis;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * Input stream reading a Redis string by GETRANGE chunks. The next chunk is
+ * read in background while the current one is consumed, so at most two chunks
+ * are held in memory.
+ *
+ * Chunks are read one after the other: a string modified while it is read may
+ * be read partially modified.
+ *
+ * @author Mathieu MAST
+ */
+class RedisStringInputStream extends InputStream {
+
+    private static final ExecutorService READ_AHEAD = Executors.newCachedThreadPool(new ThreadFactory() {
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "redis-objects-read-ahead");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final RedisObject<?, ?> redisObject;
+
+    private final byte[] key;
+
+    private final int chunkSize;
+
+    private long offset = 0;
+
+    private byte[] chunk = new byte[0];
+
+    private int position = 0;
+
+    private CompletableFuture<byte[]> next;
+
+    private boolean closed = false;
+
+    RedisStringInputStream(final RedisObject<?, ?> redisObject, final String name, final int chunkSize) {
+        this.redisObject = redisObject;
+        this.key = SafeEncoder.encode(name);
+        this.chunkSize = chunkSize;
+        this.next = fetch();
+    }
+
+    private CompletableFuture<byte[]> fetch() {
+        final long start = offset;
+        offset += chunkSize;
+        return CompletableFuture.supplyAsync(new Supplier<byte[]>() {
+
+            @Override
+            public byte[] get() {
+                return redisObject.run(new RedisObject.Work<byte[]>() {
+
+                    @Override
+                    public byte[] work(Jedis jedis) {
+                        return jedis.getrange(key, start, start + chunkSize - 1);
+                    }
+                });
+            }
+        }, READ_AHEAD);
+    }
+
+    /**
+     * Make next bytes available.
+     *
+     * @return false at end of stream
+     */
+    private boolean fill() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (position == chunk.length) {
+            if (null == next) {
+                return false;
+            }
+            try {
+                chunk = next.join();
+            } catch (CompletionException ex) {
+                throw new IOException(ex.getCause());
+            }
+            position = 0;
+            // a short chunk is the last one
+            next = chunk.length < chunkSize ? null : fetch();
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return chunk[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (0 == len) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, chunk.length - position);
+        System.arraycopy(chunk, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return closed ? 0 : chunk.length - position;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (null != next) {
+            next.cancel(false);
+            next = null;
+        }
+        chunk = new byte[0];
+        position = 0;
+    }
+}
@@ -0,0 +1,129 @@
+package org.redis.objects;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import redis.clients.jedis.Pipeline;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * Output stream writing a Redis string by chunks, with pipelined SETRANGE
+ * commands: writing does not wait for Redis and at most one chunk is buffered
+ * (plus the chunks written to the connection and not yet acknowledged).
+ * Closing the stream syncs the pipeline.
+ *
+ * @author Mathieu MAST
+ */
+class RedisStringOutputStream extends OutputStream {
+
+    private final RedisObject<?, ?> redisObject;
+
+    private final byte[] key;
+
+    private final byte[] buffer;
+
+    private int count = 0;
+
+    private long offset;
+
+    private boolean closed = false;
+
+    /**
+     * Create stream.
+     *
+     * @param redisObject Redis object
+     * @param name key of the string
+     * @param offset offset of the first written byte (-1 to replace the
+     * string)
+     * @param chunkSize size of the chunks
+     */
+    RedisStringOutputStream(final RedisObject<?, ?> redisObject, final String name, final long offset, final int chunkSize) {
+        this.redisObject = redisObject;
+        this.key = SafeEncoder.encode(name);
+        this.buffer = new byte[chunkSize];
+        if (offset < 0) {
+            this.offset = 0;
+            redisObject.pipelined(new RedisObject.PipelinedWork<Boolean>() {
+
+                @Override
+                public Boolean work(Pipeline pipeline) {
+                    pipeline.del(key);
+                    return true;
+                }
+            });
+        } else {
+            this.offset = offset;
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (count == buffer.length) {
+            flushBuffer();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (count == buffer.length) {
+                flushBuffer();
+            }
+            int n = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Send buffered bytes and sync pipeline.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        flushBuffer();
+        redisObject.sync();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            flush();
+            closed = true;
+        }
+    }
+
+    private void flushBuffer() {
+        if (0 == count) {
+            return;
+        }
+        // Jedis writes the command to the output buffer of the connection as
+        // soon as it is enqueued, but a work redirected to another node is
+        // run again after the buffer is reused: the work keeps its own copy
+        final byte[] bytes = Arrays.copyOf(buffer, count);
+        final long start = offset;
+        redisObject.pipelined(new RedisObject.PipelinedWork<Boolean>() {
+
+            @Override
+            public Boolean work(Pipeline pipeline) {
+                pipeline.setrange(key, start, bytes);
+                return true;
+            }
+        });
+        offset += count;
+        count = 0;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.redis.objects;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.redis.objects.exceptions.RedisobjectsException;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+/**
+ * Iterator paging through a Redis object with a SCAN cursor (SCAN, SSCAN,
+ * HSCAN, ZSCAN). Each page is fetched and deserialized only when the previous
+ * one is consumed, so memory use is bounded by the page size.
+ *
+ * As for SCAN commands, an element may be returned more than once and elements
+ * added or removed during iteration may or may not be returned.
+ *
+ * @author Mathieu MAST
+ * @param <R> raw element returned by the scan command
+ * @param <T> element returned by the iterator
+ */
+abstract class ScanIterator<R, T> implements Iterator<T> {
+
+    /**
+     * Default COUNT hint of scan commands.
+     */
+    static final int DEFAULT_SCAN_COUNT = 100;
+
+    private final RedisObject<?, ?> redisObject;
+
+    private final ScanParams params;
+
+    private byte[] cursor = ScanParams.SCAN_POINTER_START_BINARY;
+
+    private boolean finished = false;
+
+    private Iterator<R> page = Collections.emptyIterator();
+
+    private R last = null;
+
+    ScanIterator(final RedisObject<?, ?> redisObject, final int count) {
+        this.redisObject = redisObject;
+        this.params = new ScanParams().count(count);
+    }
+
+    /**
+     * Scan a page.
+     *
+     * @param jedis jedis
+     * @param cursor cursor
+     * @param params scan parameters
+     * @return page
+     */
+    protected abstract ScanResult<R> scan(Jedis jedis, byte[] cursor, ScanParams params);
+
+    /**
+     * Deserialize a raw element.
+     *
+     * @param raw raw element
+     * @return element
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    protected abstract T convert(R raw) throws IOException, ClassNotFoundException;
+
+    /**
+     * Move to the next key when the scan of the current key is finished (for
+     * objects split in several keys).
+     *
+     * @return false if there is no more key to scan
+     */
+    protected boolean nextKey() {
+        return false;
+    }
+
+    /**
+     * Pipeline manager of the node serving the key scanned.
+     *
+     * @return pipeline manager
+     */
+    protected PipelineManager manager() {
+        return redisObject.managerOf(redisObject.name);
+    }
+
+    /**
+     * Remove a raw element from Redis.
+     *
+     * @param raw raw element
+     */
+    protected void remove(R raw) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext() && !finished) {
+            final byte[] current = cursor;
+            ScanResult<R> res = redisObject.run(manager(), new RedisObject.Work<ScanResult<R>>() {
+
+                @Override
+                public ScanResult<R> work(Jedis jedis) {
+                    return scan(jedis, current, params);
+                }
+            });
+            cursor = res.getCursorAsBytes();
+            finished = Arrays.equals(ScanParams.SCAN_POINTER_START_BINARY, cursor) && !nextKey();
+            page = res.getResult().iterator();
+        }
+        return page.hasNext();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        last = page.next();
+        try {
+            return convert(last);
+        } catch (IOException | ClassNotFoundException ex) {
+            throw new RedisobjectsException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove() {
+        if (null == last) {
+            throw new IllegalStateException();
+        }
+        remove(last);
+        last = null;
+    }
+}
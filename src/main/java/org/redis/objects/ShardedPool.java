@@ -0,0 +1,142 @@
+package org.redis.objects;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import org.redis.objects.exceptions.RedisobjectsException;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.util.Hashing;
+
+/**
+ * Standalone Redis servers sharing the keys with a consistent-hash ring: each
+ * shard is placed on the ring at many points hashed from its name, and a key is
+ * served by the first shard following the hash of the key. Adding a shard only
+ * moves the keys of the arcs it takes over (about 1 / shards of the keys).
+ *
+ * As for Redis Cluster, only the part of a key between { and } is hashed when
+ * present, so that keys with the same hash tag are served by the same shard.
+ *
+ * @author Mathieu MAST
+ */
+public class ShardedPool implements RedisNodes {
+
+    /**
+     * Default number of points of a shard on the ring.
+     */
+    public static final int DEFAULT_POINTS = 160;
+
+    private final Map<String, JedisPool> shards;
+
+    private final TreeMap<Long, JedisPool> ring = new TreeMap<>();
+
+    private final Hashing hashing = Hashing.MURMUR_HASH;
+
+    public ShardedPool(final Collection<HostAndPort> nodes) {
+        this(toShards(nodes), DEFAULT_POINTS);
+    }
+
+    public ShardedPool(final Map<String, JedisPool> shards) {
+        this(shards, DEFAULT_POINTS);
+    }
+
+    /**
+     * Create sharded pool.
+     *
+     * @param shards pools by name of shard (the name places the shard on the
+     * ring, it must not change when shards are added)
+     * @param points number of points of each shard on the ring
+     */
+    public ShardedPool(final Map<String, JedisPool> shards, final int points) {
+        if (shards.isEmpty()) {
+            throw new RedisobjectsException("No shard");
+        }
+        this.shards = new LinkedHashMap<>(shards);
+        for (Map.Entry<String, JedisPool> shard : shards.entrySet()) {
+            for (int i = 0; i < points; i++) {
+                ring.put(hashing.hash(shard.getKey() + "-" + i), shard.getValue());
+            }
+        }
+    }
+
+    private static Map<String, JedisPool> toShards(Collection<HostAndPort> nodes) {
+        Map<String, JedisPool> shards = new LinkedHashMap<>();
+        for (HostAndPort node : nodes) {
+            shards.put(node.getHost() + ":" + node.getPort(), new JedisPool(node.getHost(), node.getPort()));
+        }
+        return shards;
+    }
+
+    /**
+     * Part of a key hashed (content of its hash tag if any).
+     *
+     * @param key key
+     * @return hashed part
+     */
+    static String hashTag(String key) {
+        int start = key.indexOf('{');
+        if (start >= 0) {
+            int end = key.indexOf('}', start + 1);
+            if (end > start + 1) {
+                return key.substring(start + 1, end);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Name of the shard serving a key.
+     *
+     * @param key key
+     * @return name of the shard
+     */
+    public String getShard(String key) {
+        JedisPool pool = getPool(key);
+        for (Map.Entry<String, JedisPool> shard : shards.entrySet()) {
+            if (shard.getValue() == pool) {
+                return shard.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JedisPool getPool(String key) {
+        Map.Entry<Long, JedisPool> point = ring.ceilingEntry(hashing.hash(hashTag(key)));
+        return (null == point ? ring.firstEntry() : point).getValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<JedisPool> getPools() {
+        return shards.values();
+    }
+
+    /**
+     * Standalone servers do not redirect commands.
+     *
+     * @param ex redirection
+     * @return never
+     */
+    @Override
+    public JedisPool redirect(JedisRedirectionException ex) {
+        throw ex;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        for (JedisPool pool : shards.values()) {
+            pool.close();
+        }
+    }
+}
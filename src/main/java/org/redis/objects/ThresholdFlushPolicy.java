@@ -0,0 +1,66 @@
+package org.redis.objects;
+
+import lombok.Getter;
+
+/**
+ * Flush policy syncing pipelines when they hold a number of commands or bytes,
+ * or after a fixed delay.
+ *
+ * @author Mathieu MAST
+ */
+public class ThresholdFlushPolicy implements FlushPolicy {
+
+    /**
+     * Default max pending commands.
+     */
+    public static final int DEFAULT_MAX_COMMANDS = 100;
+
+    /**
+     * Default delay before sync (ms).
+     */
+    public static final int DEFAULT_DELAY = 100;
+
+    @Getter
+    private final int maxCommands;
+
+    @Getter
+    private final long maxBytes;
+
+    private final long delay;
+
+    public ThresholdFlushPolicy() {
+        this(DEFAULT_MAX_COMMANDS, 0, DEFAULT_DELAY);
+    }
+
+    /**
+     * Create threshold flush policy.
+     *
+     * @param maxCommands max pending commands
+     * @param maxBytes max pending bytes (0 for no limit)
+     * @param delay delay before sync (ms)
+     */
+    public ThresholdFlushPolicy(int maxCommands, long maxBytes, long delay) {
+        this.maxCommands = maxCommands;
+        this.maxBytes = maxBytes;
+        this.delay = delay;
+    }
+
+    @Override
+    public boolean sync(int commands, long bytes) {
+        return commands >= maxCommands || (maxBytes > 0 && bytes >= maxBytes);
+    }
+
+    @Override
+    public long delay() {
+        return delay;
+    }
+
+    @Override
+    public boolean countsBytes() {
+        return maxBytes > 0;
+    }
+
+    @Override
+    public void synced(int commands, long bytes, long nanos) {
+    }
+}
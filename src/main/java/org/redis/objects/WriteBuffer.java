@@ -0,0 +1,160 @@
+package org.redis.objects;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.redis.objects.exceptions.RedisobjectsException;
+import redis.clients.jedis.Pipeline;
+
+/**
+ * Write-behind buffer of a Redis object: pending writes are held by element,
+ * so that only the last state of an element is sent when the buffer is
+ * flushed, with one command per kind of write.
+ *
+ * The buffer is flushed when the flush policy would sync as many commands,
+ * after the delay of the policy and before any other command of the object.
+ *
+ * @author Mathieu MAST
+ * @param <E> element (key of a map, member of a set)
+ * @param <V> value of the element
+ */
+abstract class WriteBuffer<E, V> {
+
+    private static final Object REMOVED = new Object();
+
+    private final RedisObject<?, ?> redisObject;
+
+    private Map<E, Object> pending = new LinkedHashMap<>();
+
+    private boolean cleared = false;
+
+    private boolean scheduled = false;
+
+    WriteBuffer(final RedisObject<?, ?> redisObject) {
+        this.redisObject = redisObject;
+    }
+
+    /**
+     * Send the pending writes.
+     *
+     * @param pipeline pipeline
+     * @param cleared object was cleared before the writes
+     * @param puts elements put
+     * @param removes elements removed (empty if cleared)
+     * @throws IOException
+     */
+    protected abstract void write(Pipeline pipeline, boolean cleared, Map<E, V> puts, List<E> removes) throws IOException;
+
+    /**
+     * Send the pending writes with the pipeline manager of the object
+     * (overridden by objects split over several nodes).
+     *
+     * @param cleared object was cleared before the writes
+     * @param puts elements put
+     * @param removes elements removed (empty if cleared)
+     * @throws IOException
+     */
+    protected void send(final boolean cleared, final Map<E, V> puts, final List<E> removes) throws IOException {
+        redisObject.pipe(new RedisObject.PipelinedWork<Boolean>() {
+
+            @Override
+            public Boolean work(Pipeline pipeline) {
+                try {
+                    write(pipeline, cleared, puts, removes);
+                    return true;
+                } catch (IOException ex) {
+                    throw new RedisobjectsException(ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Hold the put of an element.
+     *
+     * @param element element
+     * @param value value
+     */
+    synchronized void put(E element, V value) {
+        pending.put(element, value);
+        written();
+    }
+
+    /**
+     * Hold the removal of an element.
+     *
+     * @param element element
+     */
+    synchronized void remove(E element) {
+        pending.put(element, REMOVED);
+        written();
+    }
+
+    /**
+     * Hold the removal of all elements (previous writes are discarded).
+     */
+    synchronized void clear() {
+        pending.clear();
+        cleared = true;
+        written();
+    }
+
+    private void written() {
+        if (redisObject.pipelineManager.getFlushPolicy().sync(pending.size(), 0)) {
+            flush();
+        } else if (!scheduled) {
+            scheduled = true;
+            redisObject.pipelineManager.schedule(new FlushTask());
+        }
+    }
+
+    /**
+     * Send the pending writes with the pipeline of the current thread.
+     */
+    synchronized void flush() {
+        if (!cleared && pending.isEmpty()) {
+            return;
+        }
+        final boolean wasCleared = cleared;
+        final Map<E, V> puts = new LinkedHashMap<>();
+        final List<E> removes = new ArrayList<>();
+        for (Map.Entry<E, Object> en : pending.entrySet()) {
+            if (REMOVED == en.getValue()) {
+                if (!wasCleared) {
+                    removes.add(en.getKey());
+                }
+            } else {
+                puts.put(en.getKey(), (V) en.getValue());
+            }
+        }
+        pending = new LinkedHashMap<>();
+        cleared = false;
+        try {
+            send(wasCleared, puts, removes);
+        } catch (IOException ex) {
+            throw new RedisobjectsException(ex);
+        }
+    }
+
+    /**
+     * Task flushing the buffer and syncing the object.
+     */
+    private class FlushTask implements Runnable {
+
+        @Override
+        public void run() {
+            synchronized (WriteBuffer.this) {
+                scheduled = false;
+            }
+            long start = System.nanoTime();
+            try {
+                redisObject.sync();
+            } catch (RuntimeException ex) {
+                // the scheduler goes on
+                PipelineManager.lost(redisObject.metrics, redisObject.name, "flush", System.nanoTime() - start, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.redis.objects.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of positive values with power of two buckets:
+ * percentiles are approximated by the upper bound of their bucket (at most
+ * twice the exact value).
+ *
+ * @author Mathieu MAST
+ */
+public class Histogram {
+
+    private final AtomicLongArray buckets = new AtomicLongArray(64);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Record a value.
+     *
+     * @param value value (negative values are recorded as 0)
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        // bucket i holds values from 2^(i-1) to 2^i - 1
+        buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+        count.increment();
+        sum.add(value);
+    }
+
+    /**
+     * Number of values.
+     *
+     * @return count
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Sum of the values.
+     *
+     * @return sum
+     */
+    public long sum() {
+        return sum.sum();
+    }
+
+    /**
+     * Mean of the values.
+     *
+     * @return mean (0 if there is no value)
+     */
+    public double mean() {
+        long n = count();
+        return 0 == n ? 0 : (double) sum() / n;
+    }
+
+    /**
+     * Approximate percentile.
+     *
+     * @param percentile percentile (between 0 and 100)
+     * @return upper bound of the bucket of the percentile (0 if there is no
+     * value)
+     */
+    public long percentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            total += buckets.get(i);
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank && seen > 0) {
+                return (1L << i) - 1;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,224 @@
+package org.redis.objects.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics kept in memory, by object and operation, for tests, benchmarks and
+ * simple reporting.
+ *
+ * @author Mathieu MAST
+ */
+public class InMemoryMetrics implements Metrics {
+
+    private final ConcurrentMap<String, ObjectMetrics> objects = new ConcurrentHashMap<>();
+
+    @Override
+    public void operation(String object, String operation, long nanos, boolean failed) {
+        ObjectMetrics metrics = object(object);
+        metrics.operation(operation).record(nanos);
+        if (failed) {
+            metrics.errors(operation).increment();
+        }
+    }
+
+    @Override
+    public void sync(String object, int commands, long nanos, boolean failed) {
+        ObjectMetrics metrics = object(object);
+        metrics.syncs.record(nanos);
+        metrics.commandsPerSync.record(commands);
+        if (failed) {
+            metrics.errors("sync").increment();
+        }
+    }
+
+    @Override
+    public void poolWait(String object, long nanos) {
+        object(object).poolWaits.record(nanos);
+    }
+
+    @Override
+    public void serialized(String object, int bytes, long nanos) {
+        ObjectMetrics metrics = object(object);
+        metrics.serializations.record(nanos);
+        metrics.bytesOut.add(bytes);
+    }
+
+    @Override
+    public void deserialized(String object, int bytes, long nanos) {
+        ObjectMetrics metrics = object(object);
+        metrics.deserializations.record(nanos);
+        metrics.bytesIn.add(bytes);
+    }
+
+    /**
+     * Latencies of an operation (ns).
+     *
+     * @param object name of the object
+     * @param operation name of the operation
+     * @return histogram (empty if the operation was never recorded)
+     */
+    public Histogram operation(String object, String operation) {
+        return object(object).operation(operation);
+    }
+
+    /**
+     * Latencies of all the operations of an object (ns).
+     *
+     * @param object name of the object
+     * @return histograms by operation
+     */
+    public Map<String, Histogram> operations(String object) {
+        return object(object).operations;
+    }
+
+    /**
+     * Number of failures of an operation.
+     *
+     * @param object name of the object
+     * @param operation name of the operation ("sync" for pipeline syncs)
+     * @return errors
+     */
+    public long errors(String object, String operation) {
+        return object(object).errors(operation).sum();
+    }
+
+    /**
+     * Durations of the pipeline syncs (ns).
+     *
+     * @param object name of the object
+     * @return histogram
+     */
+    public Histogram syncs(String object) {
+        return object(object).syncs;
+    }
+
+    /**
+     * Number of commands sent per pipeline sync.
+     *
+     * @param object name of the object
+     * @return histogram
+     */
+    public Histogram commandsPerSync(String object) {
+        return object(object).commandsPerSync;
+    }
+
+    /**
+     * Waits for a connection of the pool (ns).
+     *
+     * @param object name of the object
+     * @return histogram
+     */
+    public Histogram poolWaits(String object) {
+        return object(object).poolWaits;
+    }
+
+    /**
+     * Durations of the serializations (ns).
+     *
+     * @param object name of the object
+     * @return histogram
+     */
+    public Histogram serializations(String object) {
+        return object(object).serializations;
+    }
+
+    /**
+     * Durations of the deserializations (ns).
+     *
+     * @param object name of the object
+     * @return histogram
+     */
+    public Histogram deserializations(String object) {
+        return object(object).deserializations;
+    }
+
+    /**
+     * Bytes written by serializations.
+     *
+     * @param object name of the object
+     * @return bytes
+     */
+    public long bytesOut(String object) {
+        return object(object).bytesOut.sum();
+    }
+
+    /**
+     * Bytes read by deserializations.
+     *
+     * @param object name of the object
+     * @return bytes
+     */
+    public long bytesIn(String object) {
+        return object(object).bytesIn.sum();
+    }
+
+    /**
+     * Forget all recorded values.
+     */
+    public void reset() {
+        objects.clear();
+    }
+
+    private ObjectMetrics object(String object) {
+        ObjectMetrics metrics = objects.get(object);
+        if (null == metrics) {
+            ObjectMetrics created = new ObjectMetrics();
+            metrics = objects.putIfAbsent(object, created);
+            if (null == metrics) {
+                metrics = created;
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Metrics of an object.
+     */
+    private static class ObjectMetrics {
+
+        private final ConcurrentMap<String, Histogram> operations = new ConcurrentHashMap<>();
+
+        private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+        private final Histogram syncs = new Histogram();
+
+        private final Histogram commandsPerSync = new Histogram();
+
+        private final Histogram poolWaits = new Histogram();
+
+        private final Histogram serializations = new Histogram();
+
+        private final Histogram deserializations = new Histogram();
+
+        private final LongAdder bytesOut = new LongAdder();
+
+        private final LongAdder bytesIn = new LongAdder();
+
+        Histogram operation(String operation) {
+            Histogram histogram = operations.get(operation);
+            if (null == histogram) {
+                Histogram created = new Histogram();
+                histogram = operations.putIfAbsent(operation, created);
+                if (null == histogram) {
+                    histogram = created;
+                }
+            }
+            return histogram;
+        }
+
+        LongAdder errors(String operation) {
+            LongAdder counter = errors.get(operation);
+            if (null == counter) {
+                LongAdder created = new LongAdder();
+                counter = errors.putIfAbsent(operation, created);
+                if (null == counter) {
+                    counter = created;
+                }
+            }
+            return counter;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.redis.objects.metrics;
+
+import java.io.IOException;
+import org.redis.objects.serializer.Serializer;
+
+/**
+ * Serializer reporting the serializations of another serializer.
+ *
+ * @author Mathieu MAST
+ */
+public class MeteredSerializer implements Serializer {
+
+    private final Serializer serializer;
+
+    private final Metrics metrics;
+
+    private final String object;
+
+    /**
+     * Create metered serializer.
+     *
+     * @param serializer serializer
+     * @param metrics metrics
+     * @param object name of the object using the serializer
+     */
+    public MeteredSerializer(Serializer serializer, Metrics metrics, String object) {
+        this.serializer = serializer;
+        this.metrics = metrics;
+        this.object = object;
+    }
+
+    @Override
+    public byte[] toBytes(Object object) throws IOException {
+        long start = System.nanoTime();
+        byte[] bytes = serializer.toBytes(object);
+        metrics.serialized(this.object, bytes.length, System.nanoTime() - start);
+        return bytes;
+    }
+
+    @Override
+    public Object toObject(byte[] bytes) throws IOException, ClassNotFoundException {
+        long start = System.nanoTime();
+        Object object = serializer.toObject(bytes);
+        metrics.deserialized(this.object, bytes.length, System.nanoTime() - start);
+        return object;
+    }
+}
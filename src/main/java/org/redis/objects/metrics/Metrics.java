@@ -0,0 +1,62 @@
+package org.redis.objects.metrics;
+
+/**
+ * Instrumentation of Redis objects. Objects built without metrics do not
+ * measure anything.
+ *
+ * Implementations are called by the threads using the objects and by the
+ * background pipeline syncs: they must be thread safe and fast.
+ *
+ * @author Mathieu MAST
+ */
+public interface Metrics {
+
+    /**
+     * Operation of an object: synchronous command (including the sync of the
+     * pending writes), enqueue of pipelined commands, or asynchronous command
+     * (until its future is completed).
+     *
+     * @param object name of the object
+     * @param operation name of the operation (asynchronous operations are
+     * prefixed by "async.")
+     * @param nanos duration (ns)
+     * @param failed operation failed
+     */
+    void operation(String object, String operation, long nanos, boolean failed);
+
+    /**
+     * Sync of a write pipeline.
+     *
+     * @param object name of the object
+     * @param commands number of commands sent since the previous sync
+     * @param nanos duration (ns)
+     * @param failed sync failed
+     */
+    void sync(String object, int commands, long nanos, boolean failed);
+
+    /**
+     * Wait for a connection of the pool.
+     *
+     * @param object name of the object
+     * @param nanos duration (ns)
+     */
+    void poolWait(String object, long nanos);
+
+    /**
+     * Serialization of a key or a value.
+     *
+     * @param object name of the object
+     * @param bytes bytes written
+     * @param nanos duration (ns)
+     */
+    void serialized(String object, int bytes, long nanos);
+
+    /**
+     * Deserialization of a key or a value.
+     *
+     * @param object name of the object
+     * @param bytes bytes read
+     * @param nanos duration (ns)
+     */
+    void deserialized(String object, int bytes, long nanos);
+}
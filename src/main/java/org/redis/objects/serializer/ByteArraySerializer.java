@@ -0,0 +1,24 @@
+package org.redis.objects.serializer;
+
+import java.io.IOException;
+
+/**
+ * Byte array serializer: arrays are stored as is.
+ *
+ * @author Mathieu MAST
+ */
+public class ByteArraySerializer implements Serializer {
+
+    @Override
+    public byte[] toBytes(Object object) throws IOException {
+        if (null == object) {
+            throw new IOException("Null array can not be serialized");
+        }
+        return (byte[]) object;
+    }
+
+    @Override
+    public Object toObject(byte[] bytes) throws IOException, ClassNotFoundException {
+        return bytes;
+    }
+}
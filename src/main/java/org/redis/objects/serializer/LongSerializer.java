@@ -0,0 +1,30 @@
+package org.redis.objects.serializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Long serializer: longs are stored as Redis integer strings, so that INCRBY,
+ * HINCRBY or Lua scripts can work on them.
+ *
+ * @author Mathieu MAST
+ */
+public class LongSerializer implements Serializer {
+
+    @Override
+    public byte[] toBytes(Object object) throws IOException {
+        if (null == object) {
+            throw new IOException("Null long can not be serialized");
+        }
+        return Long.toString((Long) object).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public Object toObject(byte[] bytes) throws IOException, ClassNotFoundException {
+        try {
+            return Long.valueOf(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException ex) {
+            throw new IOException(ex);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.redis.objects.serializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * String serializer: strings are stored as raw UTF-8, readable by any Redis
+ * client.
+ *
+ * @author Mathieu MAST
+ */
+public class StringSerializer implements Serializer {
+
+    @Override
+    public byte[] toBytes(Object object) throws IOException {
+        if (null == object) {
+            throw new IOException("Null string can not be serialized");
+        }
+        String s = (String) object;
+        int length = s.length();
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                // not ASCII
+                return s.getBytes(StandardCharsets.UTF_8);
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+
+    @Override
+    public Object toObject(byte[] bytes) throws IOException, ClassNotFoundException {
+        for (byte b : bytes) {
+            if (b < 0) {
+                // not ASCII
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        // ASCII: ISO-8859-1 maps each byte to a char, with the fastest decoder
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,131 @@
+package org.redis.objects.serializer.compression;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.redis.objects.serializer.Serializer;
+
+/**
+ * Serializer compressing the values of another serializer.
+ *
+ * Values of at least threshold bytes are compressed and written after a
+ * header made of a 4 bytes magic (0xC0 0xC1 'Z' 0), the codec byte and the
+ * decompressed length (4 bytes). Smaller values, and values that do not
+ * shrink, are written verbatim, so values written without this serializer
+ * stay readable: the magic starts with bytes that are invalid in UTF-8 and
+ * are not written first by Kryo or Java serialization. A verbatim value
+ * starting with the magic is escaped with the magic and the 0xF0 codec
+ * byte.
+ *
+ * @author Mathieu MAST
+ */
+public class CompressingSerializer implements Serializer {
+
+    /**
+     * Default threshold (bytes).
+     */
+    public static final int DEFAULT_THRESHOLD = 512;
+
+    private static final byte[] MAGIC = {(byte) 0xC0, (byte) 0xC1, 'Z', 0};
+
+    private static final byte RAW = (byte) 0xF0;
+
+    private static final int HEADER_LENGTH = MAGIC.length + 5;
+
+    private final Serializer serializer;
+
+    private final Compressor compressor;
+
+    private final int threshold;
+
+    /**
+     * Create compressing serializer.
+     *
+     * @param serializer serializer
+     * @param compressor codec used to compress values
+     * @param threshold min size of compressed values (bytes)
+     */
+    public CompressingSerializer(Serializer serializer, Compressor compressor, int threshold) {
+        this.serializer = serializer;
+        this.compressor = compressor;
+        this.threshold = threshold;
+    }
+
+    public CompressingSerializer(Serializer serializer, Compressor compressor) {
+        this(serializer, compressor, DEFAULT_THRESHOLD);
+    }
+
+    @Override
+    public byte[] toBytes(Object object) throws IOException {
+        byte[] bytes = serializer.toBytes(object);
+        if (bytes.length >= threshold) {
+            byte[] compressed = compressor.compress(bytes);
+            if (compressed.length + HEADER_LENGTH < bytes.length) {
+                byte[] res = header(compressor.id(), compressed.length + HEADER_LENGTH);
+                int length = MAGIC.length + 1;
+                res[length] = (byte) (bytes.length >>> 24);
+                res[length + 1] = (byte) (bytes.length >>> 16);
+                res[length + 2] = (byte) (bytes.length >>> 8);
+                res[length + 3] = (byte) bytes.length;
+                System.arraycopy(compressed, 0, res, HEADER_LENGTH, compressed.length);
+                return res;
+            }
+        }
+        if (hasMagic(bytes)) {
+            byte[] res = header(RAW, MAGIC.length + 1 + bytes.length);
+            System.arraycopy(bytes, 0, res, MAGIC.length + 1, bytes.length);
+            return res;
+        }
+        return bytes;
+    }
+
+    @Override
+    public Object toObject(byte[] bytes) throws IOException, ClassNotFoundException {
+        if (!hasMagic(bytes) || bytes.length == MAGIC.length) {
+            return serializer.toObject(bytes);
+        }
+        byte id = bytes[MAGIC.length];
+        if (RAW == id) {
+            return serializer.toObject(Arrays.copyOfRange(bytes, MAGIC.length + 1, bytes.length));
+        }
+        if (bytes.length < HEADER_LENGTH) {
+            throw new IOException("Truncated compressed value");
+        }
+        int length = MAGIC.length + 1;
+        int originalLength = ((bytes[length] & 0xFF) << 24) | ((bytes[length + 1] & 0xFF) << 16) | ((bytes[length + 2] & 0xFF) << 8) | (bytes[length + 3] & 0xFF);
+        return serializer.toObject(compressor(id).decompress(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH, originalLength));
+    }
+
+    private static byte[] header(byte id, int length) {
+        byte[] res = new byte[length];
+        System.arraycopy(MAGIC, 0, res, 0, MAGIC.length);
+        res[MAGIC.length] = id;
+        return res;
+    }
+
+    private Compressor compressor(byte id) throws IOException {
+        if (compressor.id() == id) {
+            return compressor;
+        }
+        // values written with another codec
+        switch (id) {
+            case DeflateCompressor.ID:
+                return new DeflateCompressor();
+            case Lz4Compressor.ID:
+                return new Lz4Compressor();
+            default:
+                throw new IOException("Unknown compression header " + (id & 0xFF));
+        }
+    }
+
+    private static boolean hasMagic(byte[] bytes) {
+        if (bytes.length < MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (MAGIC[i] != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,33 @@
+package org.redis.objects.serializer.compression;
+
+import java.io.IOException;
+
+/**
+ * Compression codec of a compressing serializer.
+ *
+ * @author Mathieu MAST
+ */
+public interface Compressor {
+
+    /**
+     * Byte identifying the codec in the header of compressed values (0xF1 to
+     * 0xFF).
+     *
+     * @return header byte
+     */
+    byte id();
+
+    byte[] compress(byte[] bytes) throws IOException;
+
+    /**
+     * Decompress bytes.
+     *
+     * @param bytes compressed bytes
+     * @param offset offset of compressed data
+     * @param length length of compressed data
+     * @param originalLength length of decompressed data
+     * @return decompressed bytes
+     * @throws IOException
+     */
+    byte[] decompress(byte[] bytes, int offset, int length, int originalLength) throws IOException;
+}
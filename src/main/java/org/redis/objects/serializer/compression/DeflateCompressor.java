@@ -0,0 +1,91 @@
+package org.redis.objects.serializer.compression;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate codec (JDK, better ratio but slower than LZ4).
+ *
+ * @author Mathieu MAST
+ */
+public class DeflateCompressor implements Compressor {
+
+    public static final byte ID = (byte) 0xF1;
+
+    private final int level;
+
+    public DeflateCompressor() {
+        this(Deflater.BEST_SPEED);
+    }
+
+    /**
+     * Create Deflate codec.
+     *
+     * @param level compression level (1 to 9)
+     */
+    public DeflateCompressor(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public byte id() {
+        return ID;
+    }
+
+    @Override
+    public byte[] compress(byte[] bytes) throws IOException {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            byte[] buffer = new byte[bytes.length + 64];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return Arrays.copyOf(buffer, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] bytes, int offset, int length, int originalLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, length);
+            byte[] res = new byte[originalLength];
+            byte[] extra = new byte[1];
+            int read = 0;
+            // the stream must end exactly after the original length
+            while (!inflater.finished()) {
+                int n;
+                if (read < originalLength) {
+                    n = inflater.inflate(res, read, originalLength - read);
+                } else if (inflater.inflate(extra) > 0) {
+                    throw new IOException("Deflate data longer than " + originalLength + " bytes");
+                } else {
+                    n = 0;
+                }
+                if (0 == n && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated deflate data");
+                }
+                read += n;
+            }
+            if (read != originalLength) {
+                throw new IOException("Deflate data shorter than " + originalLength + " bytes");
+            }
+            return res;
+        } catch (DataFormatException ex) {
+            throw new IOException(ex);
+        } finally {
+            inflater.end();
+        }
+    }
+}
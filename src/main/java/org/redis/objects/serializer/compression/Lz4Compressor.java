@@ -0,0 +1,42 @@
+package org.redis.objects.serializer.compression;
+
+import java.io.IOException;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+
+/**
+ * LZ4 codec (fast, requires the optional lz4-java dependency).
+ *
+ * @author Mathieu MAST
+ */
+public class Lz4Compressor implements Compressor {
+
+    public static final byte ID = (byte) 0xF2;
+
+    private final LZ4Factory factory = LZ4Factory.fastestInstance();
+
+    @Override
+    public byte id() {
+        return ID;
+    }
+
+    @Override
+    public byte[] compress(byte[] bytes) throws IOException {
+        return factory.fastCompressor().compress(bytes);
+    }
+
+    @Override
+    public byte[] decompress(byte[] bytes, int offset, int length, int originalLength) throws IOException {
+        try {
+            // the safe decompressor checks the block ends at offset + length
+            byte[] res = new byte[originalLength];
+            int read = factory.safeDecompressor().decompress(bytes, offset, length, res, 0, originalLength);
+            if (read != originalLength) {
+                throw new IOException("LZ4 data shorter than " + originalLength + " bytes");
+            }
+            return res;
+        } catch (LZ4Exception ex) {
+            throw new IOException(ex);
+        }
+    }
+}
@@ -1,21 +1,37 @@
 package org.redis.objects.serializer.kryo;
 
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.util.MapReferenceResolver;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
- * Kryo pool.
+ * Kryo pool (instances released when the pool is full are dropped).
  *
  * @author Mathieu MAST
  */
 public class KryoPool {
 
-    private static final KryoPool InternalKryoPool = new KryoPool();
+    /**
+     * Default max number of pooled instances.
+     */
+    public static final int DEFAULT_MAX_SIZE = 2 * Runtime.getRuntime().availableProcessors();
 
-    private final Queue<Kryo> kryos = new ConcurrentLinkedQueue<>();
+    private static final KryoPool InternalKryoPool = new KryoPool(DEFAULT_MAX_SIZE, null);
 
-    private KryoPool() {
+    private final Queue<Kryo> kryos;
+
+    private final KryoRegistry registry;
+
+    /**
+     * Create Kryo pool.
+     *
+     * @param maxSize max number of pooled instances
+     * @param registry registry of class ids (null to write class names)
+     */
+    public KryoPool(int maxSize, KryoRegistry registry) {
+        this.kryos = new LinkedBlockingQueue<>(maxSize);
+        this.registry = registry;
     }
 
     public static KryoPool getInstance() {
@@ -35,7 +51,12 @@ public class KryoPool {
     }
 
     private Kryo createInstance() {
-        Kryo kryo = new Kryo();
+        Kryo kryo;
+        if (null == registry) {
+            kryo = new Kryo();
+        } else {
+            kryo = new Kryo(new RegistryClassResolver(registry), new MapReferenceResolver());
+        }
         kryo.setReferences(false);
         return kryo;
     }
@@ -0,0 +1,106 @@
+package org.redis.objects.serializer.kryo;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of Kryo class ids, shared by all the Kryo instances of a
+ * serializer. A registered class is written as its id instead of its name, so
+ * all the applications reading or writing the same objects must use the same
+ * ids.
+ *
+ * @author Mathieu MAST
+ */
+public class KryoRegistry {
+
+    /**
+     * First id available for application classes (lower ids are used by Kryo
+     * default registrations).
+     */
+    public static final int FIRST_ID = 16;
+
+    private final ConcurrentMap<Class<?>, Integer> ids = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Integer, Class<?>> types = new ConcurrentHashMap<>();
+
+    /**
+     * Register class.
+     *
+     * @param type class
+     * @param id id of the class
+     * @return this
+     */
+    public KryoRegistry register(Class<?> type, int id) {
+        if (id < FIRST_ID) {
+            throw new IllegalArgumentException("Id of " + type.getName() + " must be greater than or equal to " + FIRST_ID);
+        }
+        put(type, id);
+        return this;
+    }
+
+    /**
+     * Get id of a class.
+     *
+     * @param type class
+     * @return id or null if class is not registered
+     */
+    public Integer id(Class<?> type) {
+        Integer id = ids.get(type);
+        if (null == id) {
+            id = resolve(type);
+            if (null != id) {
+                put(type, id);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Get class of an id.
+     *
+     * @param id id
+     * @param classLoader class loader
+     * @return class or null if id is not registered
+     */
+    public Class<?> type(int id, ClassLoader classLoader) {
+        Class<?> type = types.get(id);
+        if (null == type) {
+            type = resolve(id, classLoader);
+            if (null != type) {
+                put(type, id);
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Resolve id of a class not registered yet.
+     *
+     * @param type class
+     * @return id or null to write the class name
+     */
+    protected Integer resolve(Class<?> type) {
+        return null;
+    }
+
+    /**
+     * Resolve class of an id not registered yet.
+     *
+     * @param id id
+     * @param classLoader class loader
+     * @return class or null if id is unknown
+     */
+    protected Class<?> resolve(int id, ClassLoader classLoader) {
+        return null;
+    }
+
+    private synchronized void put(Class<?> type, int id) {
+        Integer previousId = ids.get(type);
+        Class<?> previousType = types.get(id);
+        if ((null != previousId && previousId != id) || (null != previousType && previousType != type)) {
+            throw new IllegalArgumentException("Class " + type.getName() + " can not be registered with id " + id);
+        }
+        ids.put(type, id);
+        types.put(id, type);
+    }
+}
@@ -3,27 +3,72 @@ package org.redis.objects.serializer.kryo;
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import org.redis.objects.serializer.Serializer;
 
 /**
+ * Kryo serializer.
+ *
+ * Each thread writes into its own growable buffer and reads directly from the
+ * serialized bytes, so that serializing a value only allocates the returned
+ * array.
  *
  * @author Mathieu MAST
  */
 public class KryoSerializer implements Serializer {
-    
-    private final KryoPool kryoPool = KryoPool.getInstance();
+
+    private static final int BUFFER_SIZE = 256;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * Buffers grown beyond this size are not kept by the thread.
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<Output> OUTPUT = new ThreadLocal<Output>() {
+
+        @Override
+        protected Output initialValue() {
+            return new Output(BUFFER_SIZE, -1);
+        }
+    };
+
+    private static final ThreadLocal<Input> INPUT = new ThreadLocal<Input>() {
+
+        @Override
+        protected Input initialValue() {
+            return new Input();
+        }
+    };
+
+    private final KryoPool kryoPool;
+
+    public KryoSerializer() {
+        this.kryoPool = KryoPool.getInstance();
+    }
+
+    /**
+     * Create Kryo serializer writing registered classes as ids.
+     *
+     * @param registry registry of class ids
+     */
+    public KryoSerializer(KryoRegistry registry) {
+        this.kryoPool = new KryoPool(KryoPool.DEFAULT_MAX_SIZE, registry);
+    }
 
     @Override
     public byte[] toBytes(Object object) throws IOException {
         Kryo kryo = kryoPool.get();
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream(); Output output = new Output(baos)) {
+        Output output = OUTPUT.get();
+        try {
+            output.clear();
             kryo.writeClassAndObject(output, object);
-            output.close();
-            return baos.toByteArray();
+            return output.toBytes();
         } finally {
+            if (output.getBuffer().length > MAX_RETAINED_BUFFER_SIZE) {
+                OUTPUT.remove();
+            }
             kryoPool.release(kryo);
         }
     }
@@ -31,9 +76,13 @@ public class KryoSerializer implements Serializer {
     @Override
     public Object toObject(byte[] bytes) throws IOException, ClassNotFoundException {
         Kryo kryo = kryoPool.get();
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes); Input input = new Input(bais)) {
+        Input input = INPUT.get();
+        try {
+            input.setBuffer(bytes);
             return kryo.readClassAndObject(input);
         } finally {
+            // do not retain the serialized bytes
+            input.setBuffer(EMPTY);
             kryoPool.release(kryo);
         }
     }
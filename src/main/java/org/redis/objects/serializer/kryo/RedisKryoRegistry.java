@@ -0,0 +1,92 @@
+package org.redis.objects.serializer.kryo;
+
+import java.util.Arrays;
+import org.redis.objects.exceptions.RedisobjectsException;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+/**
+ * Registry of Kryo class ids stored in Redis: a class not registered locally
+ * gets the id stored in Redis, or a new one if no application registered it
+ * yet, so that all applications sharing the registry agree on ids.
+ *
+ * Ids are stored in the hashes name:ids (class name to id) and name:classes
+ * (id to class name).
+ *
+ * @author Mathieu MAST
+ */
+public class RedisKryoRegistry extends KryoRegistry {
+
+    /**
+     * First id assigned by Redis (lower ids are available for local
+     * registrations).
+     */
+    public static final int FIRST_REDIS_ID = 128;
+
+    private static final String ASSIGN_ID
+            = "local id = redis.call('HGET', KEYS[1], ARGV[1]) "
+            + "if id then return tonumber(id) end "
+            + "id = redis.call('HLEN', KEYS[1]) + tonumber(ARGV[2]) "
+            + "redis.call('HSET', KEYS[1], ARGV[1], id) "
+            + "redis.call('HSET', KEYS[2], id, ARGV[1]) "
+            + "return id";
+
+    private final JedisPool jedisPool;
+
+    private final String idsKey;
+
+    private final String classesKey;
+
+    /**
+     * Create registry.
+     *
+     * @param jedisPool Jedis pool
+     * @param name name of the registry in Redis
+     */
+    public RedisKryoRegistry(final JedisPool jedisPool, final String name) {
+        this.jedisPool = jedisPool;
+        this.idsKey = name + ":ids";
+        this.classesKey = name + ":classes";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public KryoRegistry register(Class<?> type, int id) {
+        if (id >= FIRST_REDIS_ID) {
+            throw new IllegalArgumentException("Id of " + type.getName() + " must be lower than " + FIRST_REDIS_ID);
+        }
+        return super.register(type, id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Integer resolve(Class<?> type) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Long id = (Long) jedis.eval(ASSIGN_ID, Arrays.asList(idsKey, classesKey), Arrays.asList(type.getName(), String.valueOf(FIRST_REDIS_ID)));
+            return id.intValue();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Class<?> resolve(int id, ClassLoader classLoader) {
+        String className;
+        try (Jedis jedis = jedisPool.getResource()) {
+            className = jedis.hget(classesKey, String.valueOf(id));
+        }
+        if (null == className) {
+            return null;
+        }
+        try {
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException ex) {
+            throw new RedisobjectsException(ex);
+        }
+    }
+}
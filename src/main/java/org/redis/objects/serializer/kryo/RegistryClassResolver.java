@@ -0,0 +1,45 @@
+package org.redis.objects.serializer.kryo;
+
+import com.esotericsoftware.kryo.Registration;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.util.DefaultClassResolver;
+
+/**
+ * Class resolver registering classes of a Kryo instance from a registry.
+ *
+ * @author Mathieu MAST
+ */
+class RegistryClassResolver extends DefaultClassResolver {
+
+    private final KryoRegistry registry;
+
+    RegistryClassResolver(final KryoRegistry registry) {
+        this.registry = registry;
+    }
+
+    // raw type of the overridden method of Kryo
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Registration registerImplicit(Class type) {
+        Integer id = registry.id(type);
+        if (null == id) {
+            return super.registerImplicit(type);
+        }
+        return register(new Registration(type, kryo.getDefaultSerializer(type), id));
+    }
+
+    @Override
+    public Registration readClass(Input input) {
+        int position = input.position();
+        int classId = input.readVarInt(true);
+        input.setPosition(position);
+        // 0 is null and 1 is a class written by name
+        if (classId > 1 && null == idToRegistration.get(classId - 2)) {
+            Class<?> type = registry.type(classId - 2, kryo.getClassLoader());
+            if (null != type) {
+                register(new Registration(type, kryo.getDefaultSerializer(type), classId - 2));
+            }
+        }
+        return super.readClass(input);
+    }
+}
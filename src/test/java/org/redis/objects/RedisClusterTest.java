@@ -0,0 +1,427 @@
+package org.redis.objects;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+import org.junit.Test;
+import org.redis.objects.metrics.InMemoryMetrics;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisMovedDataException;
+
+/**
+ *
+ * @author Mathieu MAST
+ */
+public class RedisClusterTest {
+
+    @Test
+    public void redirectionTest() throws Exception {
+
+        // two fake nodes in front of databases 3 and 4, all slots on the first one
+        try (FakeCluster fake = new FakeCluster(3, 4)) {
+            for (int db : new int[]{3, 4}) {
+                try (Jedis jedis = new Jedis("localhost")) {
+                    jedis.select(db);
+                    jedis.flushDB();
+                }
+            }
+            RedisCluster stale = new RedisCluster(Collections.singleton(fake.node(0)));
+
+            // slots move to the second node: the slot map of stale is outdated
+            fake.moveAll(1);
+            RedisCluster cluster = new RedisCluster(Collections.singleton(fake.node(0)));
+
+            try (RedisObjects objects = RedisObjects.builder().nodes(cluster).build();
+                    RedisObjects staleObjects = RedisObjects.builder().nodes(stale).build()) {
+                // reads redirected by MOVED
+                RedisSet<String> set = objects.set("testClusterSet");
+                set.add("a");
+                set.sync();
+                assertTrue(staleObjects.<String>set("testClusterSet").contains("a"));
+
+                // pipelined writes redirected by MOVED are sent again
+                RedisMap<Integer, Integer> map = staleObjects.<Integer, Integer>mapBuilder("testClusterMap").buckets(8).chunkSize(2).build();
+                Map<Integer, Integer> expected = new HashMap<>();
+                for (int i = 0; i < 100; i++) {
+                    expected.put(i, -i);
+                    map.put(i, -i);
+                }
+                map.sync();
+                assertEquals(100, fake.hlen(1, "{testClusterMap:"));
+                assertEquals(0, fake.hlen(0, "{testClusterMap:"));
+                assertEquals(expected, objects.<Integer, Integer>mapBuilder("testClusterMap").buckets(8).build().getAll(expected.keySet()));
+
+                // chunked reads redirected by MOVED start again from the first chunk
+                RedisMap<Integer, Integer> written = objects.<Integer, Integer>mapBuilder("testClusterChunks").buckets(4).build();
+                written.putAll(expected);
+                written.sync();
+                RedisMap<Integer, Integer> read = staleObjects.<Integer, Integer>mapBuilder("testClusterChunks").buckets(4).chunkSize(2).build();
+                assertEquals(expected, read.getAll(expected.keySet()));
+
+                // asynchronous writes redirected by MOVED
+                RedisSet<String> async = staleObjects.set("testClusterAsync");
+                assertTrue(async.async().addAll(Arrays.asList("a", "b", "c")).get());
+                assertEquals(3, objects.set("testClusterAsync").size());
+
+                // ASK: commands are sent again with ASKING to the importing node
+                fake.ask("testClusterAsk", 0);
+                RedisSet<String> ask = objects.set("testClusterAsk");
+                ask.add("a");
+                ask.sync();
+                assertTrue(fake.sismember(0, "testClusterAsk", ask.valueToBytes("a")));
+                assertTrue(ask.contains("a"));
+                assertTrue(ask.async().add("b").get());
+                assertTrue(ask.async().contains("b").get());
+
+                // endless redirections fail
+                fake.loop("testClusterLoop");
+                RedisSet<String> loop = objects.set("testClusterLoop");
+                loop.add("a");
+                try {
+                    loop.sync();
+                    fail();
+                } catch (JedisMovedDataException ex) {
+                }
+                try {
+                    loop.async().add("a").get();
+                    fail();
+                } catch (ExecutionException ex) {
+                    assertTrue(ex.getCause() instanceof JedisMovedDataException);
+                }
+                try {
+                    loop.contains("a");
+                    fail();
+                } catch (JedisMovedDataException ex) {
+                }
+
+                // failures of background syncs are reported
+                InMemoryMetrics metrics = new InMemoryMetrics();
+                RedisCluster metered = new RedisCluster(Collections.singleton(fake.node(0)));
+                try (RedisObjects meteredObjects = RedisObjects.builder().nodes(metered).metrics(metrics).flushPolicy(new ThresholdFlushPolicy(100, 0, 10)).build()) {
+                    meteredObjects.set("testClusterLoop").add("a");
+                    meteredObjects.setBuilder("testClusterLoop").writeBehind(true).build().add("a");
+                    long timeout = System.currentTimeMillis() + 5000;
+                    while ((0 == metrics.errors(RedisObjects.NAME, "sync") || 0 == metrics.errors("testClusterLoop", "flush")) && System.currentTimeMillis() < timeout) {
+                        Thread.sleep(10);
+                    }
+                    assertTrue(metrics.errors(RedisObjects.NAME, "sync") > 0);
+                    assertTrue(metrics.errors("testClusterLoop", "flush") > 0);
+                }
+
+                // no connection is leaked
+                Set<JedisPool> pools = new HashSet<>(cluster.getPools());
+                pools.addAll(stale.getPools());
+                assertEquals(4, pools.size());
+                for (JedisPool pool : pools) {
+                    assertEquals(0, pool.getNumActive());
+                }
+            }
+        }
+    }
+
+    /**
+     * Redis Cluster of fake nodes, each one proxying a database of the local
+     * Redis server, answering CLUSTER SLOTS and redirecting the commands of
+     * the slots it does not serve.
+     */
+    private static class FakeCluster implements Closeable {
+
+        private final Node[] nodes;
+
+        /**
+         * Node serving each slot.
+         */
+        private final int[] owners = new int[RedisCluster.SLOTS];
+
+        /**
+         * Node importing each migrating slot.
+         */
+        private final Map<Integer, Integer> importing = new ConcurrentHashMap<>();
+
+        /**
+         * Slots redirected to their own node.
+         */
+        private final Set<Integer> loops = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+
+        FakeCluster(int... dbs) throws IOException {
+            nodes = new Node[dbs.length];
+            for (int i = 0; i < dbs.length; i++) {
+                nodes[i] = new Node(i, dbs[i]);
+            }
+        }
+
+        HostAndPort node(int node) {
+            return new HostAndPort("127.0.0.1", nodes[node].server.getLocalPort());
+        }
+
+        void moveAll(int node) {
+            Arrays.fill(owners, node);
+        }
+
+        void ask(String key, int node) {
+            importing.put(RedisCluster.slot(key), node);
+        }
+
+        void loop(String key) {
+            loops.add(RedisCluster.slot(key));
+        }
+
+        long hlen(int node, String prefix) {
+            try (Jedis jedis = new Jedis("localhost")) {
+                jedis.select(nodes[node].db);
+                long res = 0;
+                for (String key : jedis.keys(prefix + "*")) {
+                    res += jedis.hlen(key);
+                }
+                return res;
+            }
+        }
+
+        boolean sismember(int node, String key, byte[] member) {
+            try (Jedis jedis = new Jedis("localhost")) {
+                jedis.select(nodes[node].db);
+                return jedis.sismember(key.getBytes(StandardCharsets.UTF_8), member);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Node node : nodes) {
+                node.close();
+            }
+        }
+
+        private String slots() {
+            List<String> ranges = new ArrayList<>();
+            int start = 0;
+            for (int slot = 1; slot <= RedisCluster.SLOTS; slot++) {
+                if (slot == RedisCluster.SLOTS || owners[slot] != owners[start]) {
+                    HostAndPort node = node(owners[start]);
+                    ranges.add("*3\r\n:" + start + "\r\n:" + (slot - 1) + "\r\n*2\r\n$" + node.getHost().length() + "\r\n" + node.getHost() + "\r\n:" + node.getPort() + "\r\n");
+                    start = slot;
+                }
+            }
+            StringBuilder sb = new StringBuilder("*" + ranges.size() + "\r\n");
+            for (String range : ranges) {
+                sb.append(range);
+            }
+            return sb.toString();
+        }
+
+        private class Node implements Closeable, Runnable {
+
+            private final int index;
+
+            private final int db;
+
+            private final ServerSocket server;
+
+            private final List<Socket> sockets = Collections.synchronizedList(new ArrayList<Socket>());
+
+            Node(int index, int db) throws IOException {
+                this.index = index;
+                this.db = db;
+                this.server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+                Thread thread = new Thread(this, "fake-cluster-node");
+                thread.setDaemon(true);
+                thread.start();
+            }
+
+            @Override
+            public void run() {
+                while (!server.isClosed()) {
+                    try {
+                        final Socket client = server.accept();
+                        sockets.add(client);
+                        Thread thread = new Thread(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                serve(client);
+                            }
+                        }, "fake-cluster-connection");
+                        thread.setDaemon(true);
+                        thread.start();
+                    } catch (IOException ex) {
+                        // closed
+                    }
+                }
+            }
+
+            private void serve(Socket client) {
+                try (Socket socket = client; Socket backend = new Socket("localhost", 6379)) {
+                    InputStream in = new BufferedInputStream(socket.getInputStream());
+                    OutputStream out = socket.getOutputStream();
+                    InputStream backendIn = new BufferedInputStream(backend.getInputStream());
+                    OutputStream backendOut = backend.getOutputStream();
+                    forward(backendOut, backendIn, null, Arrays.asList("SELECT", String.valueOf(db)));
+                    boolean asking = false;
+                    boolean multi = false;
+                    boolean aborted = false;
+                    List<String> command;
+                    while (null != (command = readCommand(in))) {
+                        String name = command.get(0).toUpperCase();
+                        String redirection = "MULTI".equals(name) || "EXEC".equals(name) || "DISCARD".equals(name) ? null : redirection(command, asking);
+                        if ("ASKING".equals(name)) {
+                            asking = true;
+                            out.write("+OK\r\n".getBytes(StandardCharsets.UTF_8));
+                            continue;
+                        } else if ("CLUSTER".equals(name)) {
+                            out.write(slots().getBytes(StandardCharsets.UTF_8));
+                        } else if (null != redirection) {
+                            aborted |= multi;
+                            out.write(("-" + redirection + "\r\n").getBytes(StandardCharsets.UTF_8));
+                        } else if ("EXEC".equals(name) && aborted) {
+                            forward(backendOut, backendIn, null, Arrays.asList("DISCARD"));
+                            out.write("-EXECABORT Transaction discarded because of previous errors.\r\n".getBytes(StandardCharsets.UTF_8));
+                        } else {
+                            forward(backendOut, backendIn, out, command);
+                        }
+                        multi = "MULTI".equals(name) || multi && !"EXEC".equals(name) && !"DISCARD".equals(name);
+                        aborted &= multi;
+                        // ASKING applies to the next command, or to a transaction
+                        asking &= multi;
+                    }
+                } catch (IOException ex) {
+                    // connection closed
+                }
+            }
+
+            /**
+             * Redirection of a command, as a Redis Cluster node (null if the
+             * command is served).
+             */
+            private String redirection(List<String> command, boolean asking) {
+                if (command.size() < 2 || Arrays.asList("PING", "SELECT", "PUBLISH", "QUIT", "CLUSTER").contains(command.get(0).toUpperCase())) {
+                    return null;
+                }
+                int slot = RedisCluster.slot(command.get(1));
+                HostAndPort self = node(index);
+                if (loops.contains(slot)) {
+                    return "MOVED " + slot + " " + self;
+                }
+                Integer target = importing.get(slot);
+                if (owners[slot] == index) {
+                    return null == target ? null : "ASK " + slot + " " + node(target);
+                }
+                if (asking && null != target && target == index) {
+                    return null;
+                }
+                return "MOVED " + slot + " " + node(owners[slot]);
+            }
+
+            @Override
+            public void close() throws IOException {
+                server.close();
+                synchronized (sockets) {
+                    for (Socket socket : sockets) {
+                        socket.close();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Read a command (array of bulk strings, decoded in ISO-8859-1 to keep
+     * binary arguments).
+     */
+    private static List<String> readCommand(InputStream in) throws IOException {
+        String line = readLine(in);
+        if (null == line) {
+            return null;
+        }
+        int count = Integer.parseInt(line.substring(1));
+        List<String> args = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int length = Integer.parseInt(readLine(in).substring(1));
+            byte[] bytes = new byte[length];
+            readFully(in, bytes);
+            readLine(in);
+            args.add(new String(bytes, StandardCharsets.ISO_8859_1));
+        }
+        return args;
+    }
+
+    /**
+     * Send a command to the backend and copy its reply (skipped if out is
+     * null).
+     */
+    private static void forward(OutputStream backendOut, InputStream backendIn, OutputStream out, List<String> command) throws IOException {
+        ByteArrayOutputStream request = new ByteArrayOutputStream();
+        request.write(("*" + command.size() + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        for (String arg : command) {
+            byte[] bytes = arg.getBytes(StandardCharsets.ISO_8859_1);
+            request.write(("$" + bytes.length + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            request.write(bytes);
+            request.write("\r\n".getBytes(StandardCharsets.ISO_8859_1));
+        }
+        backendOut.write(request.toByteArray());
+        ByteArrayOutputStream reply = new ByteArrayOutputStream();
+        copyReply(backendIn, reply);
+        if (null != out) {
+            out.write(reply.toByteArray());
+        }
+    }
+
+    private static void copyReply(InputStream in, OutputStream out) throws IOException {
+        String line = readLine(in);
+        out.write((line + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        int n = line.length() > 1 && ('$' == line.charAt(0) || '*' == line.charAt(0)) ? Integer.parseInt(line.substring(1)) : -1;
+        if ('$' == line.charAt(0) && n >= 0) {
+            byte[] bytes = new byte[n + 2];
+            readFully(in, bytes);
+            out.write(bytes);
+        } else if ('*' == line.charAt(0)) {
+            for (int i = 0; i < n; i++) {
+                copyReply(in, out);
+            }
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while (-1 != (c = in.read())) {
+            if ('\r' == c) {
+                in.read();
+                return sb.toString();
+            }
+            sb.append((char) c);
+        }
+        return null;
+    }
+
+    private static void readFully(InputStream in, byte[] bytes) throws IOException {
+        int read = 0;
+        while (read < bytes.length) {
+            int n = in.read(bytes, read, bytes.length - read);
+            if (n < 0) {
+                throw new IOException("Connection closed");
+            }
+            read += n;
+        }
+    }
+}
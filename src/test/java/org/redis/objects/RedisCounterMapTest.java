@@ -0,0 +1,94 @@
+package org.redis.objects;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+import org.junit.Test;
+import org.redis.objects.serializer.StringSerializer;
+import redis.clients.jedis.JedisPool;
+
+/**
+ *
+ * @author Mathieu MAST
+ */
+public class RedisCounterMapTest {
+
+    @Test
+    public void basicTest() {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        RedisCounterMap<String> counters = new RedisCounterMap.RedisCounterMapBuilder<String>().jedisPool(jedisPool).name("testCounterMap").keySerializer(new StringSerializer()).build();
+
+        counters.clear();
+
+        assertEquals(0, counters.get("a"));
+        assertFalse(counters.containsKey("a"));
+
+        counters.increment("a");
+        counters.increment("a", 2);
+        assertEquals(3, counters.get("a"));
+        assertEquals(13, counters.addAndGet("a", 10));
+        assertEquals(-7, counters.addAndGet("b", -7));
+
+        Map<String, Long> deltas = new HashMap<>();
+        deltas.put("a", 1L);
+        deltas.put("c", 5L);
+        counters.incrementAll(deltas);
+
+        Map<String, Long> values = counters.getAll(Arrays.asList("a", "b", "c", "d"));
+        assertEquals(3, values.size());
+        assertEquals(Long.valueOf(14), values.get("a"));
+        assertEquals(Long.valueOf(-7), values.get("b"));
+        assertEquals(Long.valueOf(5), values.get("c"));
+
+        counters.increment("f", 0.5);
+        assertEquals(1.5, counters.addAndGet("f", 1.0), 0.0);
+        assertEquals(1.5, counters.getDouble("f"), 0.0);
+
+        assertEquals(4, counters.size());
+        counters.remove("f");
+        assertEquals(3, counters.size());
+        assertTrue(counters.containsKey("a"));
+
+        counters.clear();
+        assertEquals(0, counters.size());
+    }
+
+    @Test
+    public void multiThreadTest() throws InterruptedException {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        final RedisCounterMap<String> counters = new RedisCounterMap.RedisCounterMapBuilder<String>().jedisPool(jedisPool).name("testCounterMapMultiThread").pipelines(4).build();
+
+        counters.clear();
+        counters.sync();
+
+        ExecutorService pool = Executors.newFixedThreadPool(10);
+        for (int i = 0; i < 10; i++) {
+            pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        counters.increment("counter" + (j % 10));
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(1000, counters.get("counter" + i));
+        }
+
+        counters.clear();
+    }
+}
@@ -1,11 +1,33 @@
 package org.redis.objects;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertNotNull;
+import static junit.framework.TestCase.assertNull;
 import static junit.framework.TestCase.assertTrue;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.junit.Test;
+import org.redis.objects.metrics.InMemoryMetrics;
+import org.redis.objects.serializer.LongSerializer;
+import org.redis.objects.serializer.StringSerializer;
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
 
 /**
  *
@@ -54,4 +76,547 @@ public class RedisMapTest {
         assertEquals(null, map.get("b"));
         assertEquals(null, map.get("c"));
     }
+
+    @Test
+    public void nearCacheTest() throws InterruptedException {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        RedisMap<String, Integer> map = new RedisMap.RedisMapBuilder<String, Integer>().jedisPool(jedisPool).name("testMapNearCache").nearCacheSize(2).build();
+        RedisMap<String, Integer> writer = new RedisMap.RedisMapBuilder<String, Integer>().jedisPool(jedisPool).name("testMapNearCache").publishInvalidations(true).build();
+
+        writer.clear();
+        writer.put("a", 1);
+        writer.sync();
+
+        long timeout = System.currentTimeMillis() + 5000;
+        while (0 == map.getNearCache().getHits() && System.currentTimeMillis() < timeout) {
+            assertEquals(1, (int) map.get("a"));
+            Thread.sleep(10);
+        }
+        assertTrue(map.getNearCache().getHits() > 0);
+        assertTrue(map.getNearCache().getMisses() > 0);
+        assertEquals(1, map.getNearCache().size());
+
+        writer.put("a", 2);
+        writer.sync();
+
+        timeout = System.currentTimeMillis() + 5000;
+        while (2 != map.get("a") && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, (int) map.get("a"));
+
+        map.put("b", 3);
+        map.put("c", 4);
+        assertEquals(3, (int) map.get("b"));
+        assertEquals(4, (int) map.get("c"));
+        assertEquals(2, (int) map.get("a"));
+        assertTrue(map.getNearCache().size() <= 2);
+
+        map.clear();
+        assertEquals(null, map.get("a"));
+
+        map.close();
+    }
+
+    @Test
+    public void nearCacheSharedTest() throws Exception {
+
+        GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+        config.setMaxTotal(3);
+        config.setMaxWaitMillis(2000);
+        JedisPool jedisPool = new JedisPool(config, "localhost");
+
+        try (RedisObjects objects = new RedisObjects(jedisPool)) {
+            List<RedisMap<String, Integer>> maps = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                RedisMap<String, Integer> map = objects.<String, Integer>mapBuilder("testMapNearCacheShared" + i).nearCacheSize(10).build();
+                map.put("a", i);
+                maps.add(map);
+            }
+            objects.sync();
+            // the subscriber connection is shared by the near caches
+            long timeout = System.currentTimeMillis() + 5000;
+            for (int i = 0; i < maps.size(); i++) {
+                RedisMap<String, Integer> map = maps.get(i);
+                while (0 == map.getNearCache().getHits() && System.currentTimeMillis() < timeout) {
+                    assertEquals(i, (int) map.get("a"));
+                    Thread.sleep(10);
+                }
+                assertTrue(map.getNearCache().getHits() > 0);
+            }
+            assertEquals(1, jedisPool.getNumActive());
+
+            // invalidation messages are dispatched by map
+            maps.get(3).put("a", 30);
+            objects.sync();
+            timeout = System.currentTimeMillis() + 5000;
+            while (30 != maps.get(3).get("a") && System.currentTimeMillis() < timeout) {
+                Thread.sleep(10);
+            }
+            assertEquals(30, (int) maps.get(3).get("a"));
+            assertEquals(4, (int) maps.get(4).get("a"));
+
+            for (RedisMap<String, Integer> map : maps) {
+                map.clear();
+            }
+        }
+    }
+
+    @Test
+    public void viewsTest() {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        RedisMap<Integer, Integer> map = new RedisMap.RedisMapBuilder<Integer, Integer>().jedisPool(jedisPool).name("testMapViews").scanCount(10).build();
+
+        map.clear();
+
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i * 2);
+        }
+
+        Set<Integer> keys = new HashSet<>();
+        for (Integer key : map.keySet()) {
+            keys.add(key);
+        }
+        assertEquals(1000, keys.size());
+        assertEquals(1000, map.keySet().size());
+        assertTrue(map.keySet().contains(10));
+
+        Set<Integer> values = new HashSet<>(map.values());
+        assertEquals(1000, values.size());
+        assertTrue(map.containsValue(20));
+        assertFalse(map.containsValue(21));
+
+        for (Map.Entry<Integer, Integer> entry : map.entrySet()) {
+            assertEquals(entry.getKey() * 2, (int) entry.getValue());
+            if (entry.getKey() == 0) {
+                entry.setValue(-1);
+            }
+        }
+        assertEquals(-1, (int) map.get(0));
+
+        Iterator<Integer> it = map.keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next() % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(500, map.size());
+        assertFalse(map.containsKey(0));
+        assertTrue(map.containsKey(1));
+
+        map.clear();
+    }
+
+    @Test
+    public void multiThreadTest() throws InterruptedException {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        final RedisMap<String, String> map = new RedisMap.RedisMapBuilder<String, String>().jedisPool(jedisPool).name("testMapMultiThread").pipelines(4).build();
+
+        // writes of different threads are not ordered across pipelines
+        map.clear();
+        map.sync();
+
+        ExecutorService pool = Executors.newFixedThreadPool(10);
+        for (int i = 0; i < 10; i++) {
+            pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        String s = UUID.randomUUID().toString();
+                        map.put(s, s);
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+
+        assertEquals(10000, map.size());
+
+        map.clear();
+    }
+
+    @Test
+    public void asyncTest() throws Exception {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        RedisMap<String, Integer> map = new RedisMap.RedisMapBuilder<String, Integer>().jedisPool(jedisPool).name("testMapAsync").build();
+
+        map.async().clear().get();
+
+        CompletableFuture<Void> put = map.async().put("a", 1);
+        CompletableFuture<Integer> get = map.async().get("a");
+        CompletableFuture<Integer> size = map.async().size();
+        assertNull(put.get());
+        assertEquals(Integer.valueOf(1), get.get());
+        assertEquals(Integer.valueOf(1), size.get());
+
+        map.async().put("b", 2);
+        assertEquals(Arrays.asList(1, 2, null), map.async().values(Arrays.asList("a", "b", "c")).get());
+        assertTrue(map.async().containsKey("b").get());
+        assertTrue(map.async().remove("b").get());
+        assertFalse(map.async().remove("b").get());
+        assertFalse(map.containsKey("b"));
+
+        // previous values resolved with the pipeline
+        CompletableFuture<Integer> first = map.async().getAndPut("b", 3);
+        CompletableFuture<Integer> second = map.async().getAndPut("b", 4);
+        CompletableFuture<Integer> removed = map.async().getAndRemove("b");
+        assertNull(first.get());
+        assertEquals(Integer.valueOf(3), second.get());
+        assertEquals(Integer.valueOf(4), removed.get());
+        assertNull(map.async().getAndRemove("b").get());
+        assertEquals(Integer.valueOf(1), map.async().getAndPut("a", 5).get());
+        assertEquals(Integer.valueOf(5), map.get("a"));
+
+        map.async().clear().get();
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void getAllTest() {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        RedisMap<Integer, Integer> map = new RedisMap.RedisMapBuilder<Integer, Integer>().jedisPool(jedisPool).name("testMapGetAll").chunkSize(100).build();
+
+        map.clear();
+
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i * 2);
+            keys.add(i);
+        }
+        keys.add(-1);
+
+        Map<Integer, Integer> values = map.getAll(keys);
+        assertEquals(1000, values.size());
+        assertEquals(Integer.valueOf(1998), values.get(999));
+        assertFalse(values.containsKey(-1));
+
+        List<Integer> list = new ArrayList<>(map.values(Arrays.asList(2, -1, 3)));
+        assertEquals(Arrays.asList(4, null, 6), list);
+
+        map.clear();
+    }
+
+    @Test
+    public void bucketsTest() throws Exception {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        RedisMap<Integer, Integer> map = new RedisMap.RedisMapBuilder<Integer, Integer>().jedisPool(jedisPool).name("testMapBuckets").buckets(16).chunkSize(100).writeBehind(true).build();
+
+        map.clear();
+        map.sync();
+
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            expected.put(i, i * 2);
+        }
+        map.putAll(expected);
+        map.put(1000, 2000);
+        map.remove(0);
+        expected.put(1000, 2000);
+        expected.remove(0);
+
+        assertEquals(1000, map.size());
+        assertEquals(Integer.valueOf(2000), map.get(1000));
+        assertNull(map.get(0));
+        assertTrue(map.containsKey(500));
+        Map<Integer, Integer> found = map.getAll(Arrays.asList(-1, 0, 1, 2, 999, 1000));
+        assertEquals(4, found.size());
+        assertEquals(Integer.valueOf(1998), found.get(999));
+        // iteration over all the buckets
+        assertEquals(expected, new HashMap<>(map));
+        assertEquals(Arrays.asList(null, 2, 1998), map.async().values(Arrays.asList(0, 1, 999)).get());
+        assertEquals(Integer.valueOf(1000), map.async().size().get());
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            assertFalse(jedis.exists("testMapBuckets"));
+            for (int i = 0; i < 16; i++) {
+                // small hashes keep the compact encoding
+                assertEquals("ziplist", jedis.objectEncoding("{testMapBuckets:" + i + "}"));
+            }
+        }
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        try (Jedis jedis = jedisPool.getResource()) {
+            assertFalse(jedis.exists("{testMapBuckets:0}"));
+        }
+
+        // the same bucket of two maps is in different slots
+        assertTrue(RedisCluster.slot("{testMapBuckets:0}") != RedisCluster.slot("{testMapBuckets2:0}"));
+
+        // a hash tag in the name keeps all the buckets in its slot
+        RedisMap<Integer, Integer> tagged = new RedisMap.RedisMapBuilder<Integer, Integer>().jedisPool(jedisPool).name("{testMapBuckets}:tagged").buckets(4).build();
+        tagged.clear();
+        tagged.putAll(expected);
+        tagged.sync();
+        try (Jedis jedis = jedisPool.getResource()) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(jedis.exists("{testMapBuckets}:tagged:" + i));
+            }
+        }
+        assertEquals(expected, tagged.getAll(expected.keySet()));
+        tagged.clear();
+    }
+
+    @Test
+    public void nodesTest() throws Exception {
+
+        // two nodes: databases 0 and 1, serving keys by parity of their slot
+        final JedisPool[] pools = {new JedisPool("localhost"), new JedisPool(new GenericObjectPoolConfig(), "localhost", 6379, Protocol.DEFAULT_TIMEOUT, null, 1)};
+        RedisNodes nodes = new RedisNodes() {
+
+            @Override
+            public JedisPool getPool(String key) {
+                return pools[RedisCluster.slot(key) % 2];
+            }
+
+            @Override
+            public Collection<JedisPool> getPools() {
+                return Arrays.asList(pools);
+            }
+
+            @Override
+            public JedisPool redirect(JedisRedirectionException ex) {
+                throw ex;
+            }
+
+            @Override
+            public void close() {
+                for (JedisPool pool : pools) {
+                    pool.close();
+                }
+            }
+        };
+
+        try (RedisObjects objects = RedisObjects.builder().nodes(nodes).build()) {
+            RedisMap<Integer, Integer> map = objects.<Integer, Integer>mapBuilder("testMapNodes").buckets(16).writeBehind(true).build();
+
+            map.clear();
+            map.sync();
+
+            Map<Integer, Integer> expected = new HashMap<>();
+            for (int i = 0; i < 1000; i++) {
+                expected.put(i, i * 2);
+            }
+            map.putAll(expected);
+            map.remove(0);
+            expected.remove(0);
+            map.sync();
+            CompletableFuture<Void> put = map.async().put(1000, 2000);
+            expected.put(1000, 2000);
+            map.sync();
+            put.get();
+
+            assertEquals(1000, map.size());
+            assertEquals(Integer.valueOf(2000), map.get(1000));
+            assertNull(map.get(0));
+            assertTrue(map.containsKey(500));
+            Map<Integer, Integer> found = map.getAll(Arrays.asList(-1, 0, 1, 2, 999, 1000));
+            assertEquals(4, found.size());
+            assertEquals(Integer.valueOf(1998), found.get(999));
+            assertEquals(expected, new HashMap<>(map));
+            assertEquals(Arrays.asList(null, 2, 1998), map.async().values(Arrays.asList(0, 1, 999)).get());
+            assertEquals(Integer.valueOf(1000), map.async().size().get());
+
+            // each bucket is stored by its node only
+            for (int i = 0; i < 16; i++) {
+                String hash = "{testMapNodes:" + i + "}";
+                int node = RedisCluster.slot(hash) % 2;
+                try (Jedis jedis = pools[node].getResource(); Jedis other = pools[1 - node].getResource()) {
+                    assertTrue(jedis.exists(hash));
+                    assertFalse(other.exists(hash));
+                }
+            }
+
+            map.clear();
+            assertTrue(map.isEmpty());
+        }
+    }
+
+    @Test
+    public void codecTest() {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        RedisMap<String, Long> map = new RedisMap.RedisMapBuilder<String, Long>().jedisPool(jedisPool).name("testMapCodec").keySerializer(new StringSerializer()).valueSerializer(new LongSerializer()).build();
+
+        map.clear();
+
+        map.put("a", 1L);
+        assertEquals(Long.valueOf(1), map.get("a"));
+
+        // data is usable from other clients
+        try (Jedis jedis = jedisPool.getResource()) {
+            assertEquals("1", jedis.hget("testMapCodec", "a"));
+            jedis.hincrBy("testMapCodec", "a", 2);
+        }
+        assertEquals(Long.valueOf(3), map.get("a"));
+        assertEquals("a", map.keySet().iterator().next());
+
+        map.clear();
+    }
+
+    @Test
+    public void writeBehindTest() {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        RedisMap<String, Long> map = new RedisMap.RedisMapBuilder<String, Long>().jedisPool(jedisPool).name("testMapWriteBehind").keySerializer(new StringSerializer()).valueSerializer(new LongSerializer()).writeBehind(true).build();
+
+        map.clear();
+        map.put("removed", 0L);
+        map.sync();
+
+        long hsets = commandCalls(jedisPool, "hset");
+        long hmsets = commandCalls(jedisPool, "hmset");
+        for (long i = 0; i < 50; i++) {
+            map.put("a", i);
+            map.put("b", -i);
+        }
+        map.remove("removed");
+        map.remove("b");
+        map.put("b", 1L);
+        map.sync();
+
+        // only the last values were sent, with one HMSET
+        assertEquals(hsets, commandCalls(jedisPool, "hset"));
+        assertEquals(hmsets + 1, commandCalls(jedisPool, "hmset"));
+        try (Jedis jedis = jedisPool.getResource()) {
+            assertEquals("49", jedis.hget("testMapWriteBehind", "a"));
+            assertEquals("1", jedis.hget("testMapWriteBehind", "b"));
+            assertFalse(jedis.hexists("testMapWriteBehind", "removed"));
+        }
+
+        // reads see held writes
+        map.put("c", 3L);
+        assertEquals(Long.valueOf(3), map.get("c"));
+        map.clear();
+        map.put("d", 4L);
+        assertEquals(1, map.size());
+        assertEquals(Long.valueOf(4), map.get("d"));
+
+        map.clear();
+        map.sync();
+    }
+
+    @Test
+    public void metricsTest() throws Exception {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        RedisMap<String, String> map = new RedisMap.RedisMapBuilder<String, String>().jedisPool(jedisPool).name("testMapMetrics").serializer(new StringSerializer()).metrics(metrics).build();
+
+        map.clear();
+        for (int i = 0; i < 10; i++) {
+            map.put("k" + i, "v");
+        }
+        assertEquals("v", map.get("k0"));
+        assertEquals(10, map.size());
+        map.async().get("k1").get();
+
+        assertEquals(10, metrics.operation("testMapMetrics", "put").count());
+        assertEquals(1, metrics.operation("testMapMetrics", "load").count());
+        assertEquals(1, metrics.operation("testMapMetrics", "size").count());
+        assertEquals(1, metrics.operation("testMapMetrics", "async.get").count());
+        assertTrue(metrics.operation("testMapMetrics", "put").percentile(50) > 0);
+        // clear, puts and asynchronous get were sent with the pipeline
+        assertEquals(12, metrics.commandsPerSync("testMapMetrics").sum());
+        assertTrue(metrics.poolWaits("testMapMetrics").count() >= 3);
+        // 10 puts of 2 + 1 bytes, 2 gets of 2 bytes
+        assertEquals(34, metrics.bytesOut("testMapMetrics"));
+        assertEquals(2, metrics.bytesIn("testMapMetrics"));
+        assertEquals(0, metrics.errors("testMapMetrics", "put"));
+
+        map.clear();
+        map.sync();
+    }
+
+    @Test
+    public void flushPolicyTest() throws InterruptedException {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        // writes stay in the pipeline until the delay
+        RedisMap<String, String> map = new RedisMap.RedisMapBuilder<String, String>().jedisPool(jedisPool).name("testMapFlushPolicy").serializer(new StringSerializer()).delayBeforeSync(5000).build();
+        map.put("a", "1");
+        Thread.sleep(300);
+        try (Jedis jedis = jedisPool.getResource()) {
+            assertNull(jedis.hget("testMapFlushPolicy", "a"));
+        }
+        map.sync();
+        try (Jedis jedis = jedisPool.getResource()) {
+            assertEquals("1", jedis.hget("testMapFlushPolicy", "a"));
+        }
+
+        // pending bytes threshold
+        map = new RedisMap.RedisMapBuilder<String, String>().jedisPool(jedisPool).name("testMapFlushPolicy").serializer(new StringSerializer()).flushPolicy(new ThresholdFlushPolicy(1000, 100, 5000)).build();
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            value.append('x');
+        }
+        map.put("b", value.toString());
+        map.put("c", value.toString());
+        map.put("d", value.toString());
+        try (Jedis jedis = jedisPool.getResource()) {
+            assertNotNull(jedis.hget("testMapFlushPolicy", "c"));
+            assertNull(jedis.hget("testMapFlushPolicy", "d"));
+        }
+        map.clear();
+        map.sync();
+
+        // batches grow while syncs are fast
+        AdaptiveFlushPolicy policy = new AdaptiveFlushPolicy(1000, 2, 64, 0, 5000);
+        map = new RedisMap.RedisMapBuilder<String, String>().jedisPool(jedisPool).name("testMapFlushPolicy").serializer(new StringSerializer()).flushPolicy(policy).build();
+        assertEquals(2, policy.limit());
+        for (int i = 0; i < 1000; i++) {
+            map.put("k" + i, "v");
+        }
+        assertEquals(64, policy.limit());
+        policy.synced(64, 0, 2000000000L);
+        assertEquals(48, policy.limit());
+
+        map.clear();
+        map.sync();
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void deprecatedSettersTest() {
+
+        // the former setters of the pipeline manager replace its flush policy
+        PipelineManager manager = new PipelineManager(new JedisPool("localhost"));
+        manager.setFlushPolicy(new ThresholdFlushPolicy(100, 1000, 100));
+        manager.setMaxWithoutSync(10);
+        manager.setDelayBeforeSync(50);
+        assertEquals(10, manager.getMaxWithoutSync());
+        assertEquals(50, manager.getDelayBeforeSync());
+        ThresholdFlushPolicy policy = (ThresholdFlushPolicy) manager.getFlushPolicy();
+        assertEquals(10, policy.getMaxCommands());
+        assertEquals(1000, policy.getMaxBytes());
+        assertEquals(50, policy.delay());
+    }
+
+    private static long commandCalls(JedisPool jedisPool, String command) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            for (String line : jedis.info("commandstats").split("\r\n")) {
+                if (line.startsWith("cmdstat_" + command + ":calls=")) {
+                    return Long.parseLong(line.substring(line.indexOf('=') + 1, line.indexOf(',')));
+                }
+            }
+            return 0;
+        }
+    }
 }
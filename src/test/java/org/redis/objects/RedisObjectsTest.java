@@ -0,0 +1,49 @@
+package org.redis.objects;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import org.junit.Test;
+import org.redis.objects.serializer.StringSerializer;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+/**
+ *
+ * @author Mathieu MAST
+ */
+public class RedisObjectsTest {
+
+    @Test
+    public void basicTest() {
+
+        RedisObjects objects = new RedisObjects.RedisObjectsBuilder().jedisPool(new JedisPool("localhost")).serializer(new StringSerializer()).schedulerThreads(2).build();
+
+        int threads = Thread.activeCount();
+        // one map per request, without thread
+        for (int i = 0; i < 1000; i++) {
+            RedisMap<String, String> map = objects.map("testObjects" + i % 10);
+            map.put("k" + i, "v");
+        }
+        assertTrue(Thread.activeCount() <= threads + 2);
+
+        RedisSet<String> set = objects.set("testObjectsSet");
+        set.add("a");
+        RedisCounterMap<String> counters = objects.counterMap("testObjectsCounters");
+        counters.increment("a");
+
+        // pending writes are synced when closing
+        JedisPool jedisPool = objects.getJedisPool();
+        objects.close();
+        assertTrue(jedisPool.isClosed());
+
+        try (Jedis jedis = new Jedis("localhost")) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(Long.valueOf(100), jedis.hlen("testObjects" + i));
+                jedis.del("testObjects" + i);
+            }
+            assertTrue(jedis.sismember("testObjectsSet", "a"));
+            assertEquals("1", jedis.hget("testObjectsCounters", "a"));
+            jedis.del("testObjectsSet", "testObjectsCounters");
+        }
+    }
+}
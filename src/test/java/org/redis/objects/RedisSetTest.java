@@ -1,7 +1,12 @@
 package org.redis.objects;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertNotNull;
@@ -72,4 +77,183 @@ public class RedisSetTest {
 
         assertTrue(set.isEmpty());
     }
+
+    @Test
+    public void bulkTest() {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        RedisSet<Integer> set = new RedisSet.RedisSetBuilder<Integer>().jedisPool(jedisPool).name("testSetBulk").chunkSize(7).build();
+
+        set.clear();
+
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            list.add(i);
+        }
+        assertTrue(set.addAll(list));
+        assertFalse(set.addAll(list));
+        assertFalse(set.addAll(new ArrayList<Integer>()));
+        assertEquals(50, set.size());
+
+        list = new ArrayList<>();
+        for (int i = 25; i < 100; i++) {
+            list.add(i);
+        }
+        assertTrue(set.retainAll(list));
+        assertFalse(set.retainAll(list));
+        assertEquals(25, set.size());
+        assertTrue(set.contains(25));
+        assertFalse(set.contains(24));
+
+        assertFalse(set.removeAll(Arrays.asList(0, 1, 2)));
+        assertTrue(set.removeAll(Arrays.asList(25, 26, 0)));
+        assertEquals(23, set.size());
+
+        set.clear();
+
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void algebraTest() {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        RedisSet<String> a = new RedisSet.RedisSetBuilder<String>().jedisPool(jedisPool).name("testSetA").build();
+        RedisSet<String> b = new RedisSet.RedisSetBuilder<String>().jedisPool(jedisPool).name("testSetB").build();
+
+        a.clear();
+        b.clear();
+        a.add("a");
+        a.add("b");
+        a.add("c");
+        b.add("b");
+        b.add("c");
+        b.add("d");
+
+        RedisSet<String> union = a.union("testSetUnion", b);
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c", "d")), new HashSet<>(Arrays.asList(union.toArray(new String[0]))));
+
+        RedisSet<String> inter = a.intersect("testSetInter", b);
+        assertEquals(new HashSet<>(Arrays.asList("b", "c")), new HashSet<>(Arrays.asList(inter.toArray(new String[0]))));
+
+        RedisSet<String> diff = a.difference("testSetDiff", b);
+        assertEquals(1, diff.size());
+        assertTrue(diff.contains("a"));
+
+        // result is a set as any other
+        diff.add("e");
+        assertEquals(2, diff.size());
+
+        a.clear();
+        b.clear();
+        union.clear();
+        inter.clear();
+        diff.clear();
+
+        assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    public void iteratorTest() {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        RedisSet<Integer> set = new RedisSet.RedisSetBuilder<Integer>().jedisPool(jedisPool).name("testSetIterator").scanCount(10).chunkSize(64).build();
+
+        set.clear();
+
+        for (int i = 0; i < 1000; i++) {
+            set.add(i);
+        }
+
+        Set<Integer> values = new HashSet<>();
+        for (Integer value : set) {
+            values.add(value);
+        }
+        assertEquals(1000, values.size());
+
+        Iterator<Integer> it = set.iterator();
+        while (it.hasNext()) {
+            if (it.next() % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(500, set.size());
+        assertFalse(set.contains(0));
+        assertTrue(set.contains(1));
+
+        List<Integer> odds = new ArrayList<>();
+        for (int i = 1; i < 1000; i += 2) {
+            odds.add(i);
+        }
+        assertTrue(set.containsAll(odds));
+        odds.add(0);
+        assertFalse(set.containsAll(odds));
+        assertTrue(set.contains(1));
+
+        set.clear();
+    }
+
+    @Test
+    public void asyncTest() throws Exception {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        RedisSet<String> set = new RedisSet.RedisSetBuilder<String>().jedisPool(jedisPool).name("testSetAsync").build();
+
+        set.async().clear().get();
+
+        assertTrue(set.async().add("a").get());
+        assertFalse(set.async().add("a").get());
+        assertTrue(set.async().contains("a").get());
+        assertEquals(Integer.valueOf(1), set.async().size().get());
+        assertTrue(set.async().remove("a").get());
+        assertFalse(set.async().contains("a").get());
+        assertTrue(set.isEmpty());
+
+        RedisSet<String> chunked = new RedisSet.RedisSetBuilder<String>().jedisPool(jedisPool).name("testSetAsync").chunkSize(2).build();
+        assertTrue(chunked.async().addAll(Arrays.asList("a", "b", "c", "d", "e")).get());
+        assertFalse(chunked.async().addAll(Arrays.asList("a", "b", "c")).get());
+        assertFalse(chunked.async().addAll(Collections.<String>emptyList()).get());
+        assertTrue(chunked.async().containsAll(Arrays.asList("a", "c", "e")).get());
+        assertFalse(chunked.async().containsAll(Arrays.asList("a", "f")).get());
+        assertTrue(chunked.async().removeAll(Arrays.asList("a", "f")).get());
+        assertFalse(chunked.async().removeAll(Arrays.asList("a", "f")).get());
+        assertTrue(chunked.async().retainAll(Arrays.asList("b", "c", "f")).get());
+        assertFalse(chunked.async().retainAll(Arrays.asList("b", "c", "f")).get());
+        assertEquals(new HashSet<>(Arrays.asList("b", "c")), new HashSet<>(chunked));
+        chunked.clear();
+    }
+
+    @Test
+    public void writeBehindTest() {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        RedisSet<Integer> set = new RedisSet.RedisSetBuilder<Integer>().jedisPool(jedisPool).name("testSetWriteBehind").maxWithoutSync(50).writeBehind(true).build();
+
+        set.clear();
+        for (int i = 0; i < 200; i++) {
+            set.add(i % 60);
+            set.remove(i % 60 + 1);
+        }
+        // 20 was removed last, the other members were added last
+        assertEquals(59, set.size());
+        assertTrue(set.contains(0));
+        assertFalse(set.contains(20));
+        assertTrue(set.contains(59));
+
+        set.add(1);
+        set.add(2);
+        set.remove(1);
+        set.clear();
+        set.add(3);
+        assertEquals(1, set.size());
+        assertTrue(set.contains(3));
+
+        set.clear();
+        set.sync();
+    }
 }
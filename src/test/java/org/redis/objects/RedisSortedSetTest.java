@@ -1,6 +1,7 @@
 package org.redis.objects;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
@@ -10,6 +11,7 @@ import static junit.framework.TestCase.assertNotNull;
 import static junit.framework.TestCase.assertTrue;
 import org.junit.Test;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.ZParams;
 
 /**
  *
@@ -116,17 +118,188 @@ public class RedisSortedSetTest {
         list.add(new ScoreableString("b", 1));
         list.add(new ScoreableString("d", 4));
 
-        set.retainAll(list);
+        assertTrue(set.retainAll(list));
+        assertFalse(set.retainAll(list));
         assertEquals(2, set.size());
+        it = set.iterator();
+        assertEquals("b", it.next().getStr());
+        assertEquals("a", it.next().getStr());
 
         list = new ArrayList<>();
         list.add(new ScoreableString("a", 2));
 
-        set.removeAll(list);
+        assertTrue(set.removeAll(list));
+        assertFalse(set.removeAll(list));
         assertEquals(1, set.size());
 
+        list.add(new ScoreableString("d", 4));
+        assertTrue(set.addAll(list));
+        assertFalse(set.addAll(list));
+        assertEquals(3, set.size());
+        assertEquals("d", set.last().getStr());
+
         set.clear();
 
         assertTrue(set.isEmpty());
     }
+
+    @Test
+    public void algebraTest() {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        RedisSortedSet<ScoreableString> a = new RedisSortedSet.RedisSortedSetBuilder<ScoreableString>().jedisPool(jedisPool).name("testSortedSetA").build();
+        RedisSortedSet<ScoreableString> b = new RedisSortedSet.RedisSortedSetBuilder<ScoreableString>().jedisPool(jedisPool).name("testSortedSetB").build();
+
+        a.clear();
+        b.clear();
+        a.add(new ScoreableString("a", 1));
+        a.add(new ScoreableString("b", 2));
+        b.add(new ScoreableString("b", 2));
+        b.add(new ScoreableString("c", 3));
+
+        RedisSortedSet<ScoreableString> union = a.union("testSortedSetUnion", b);
+        assertEquals(3, union.size());
+        // scores are summed: b has score 4
+        assertEquals("b", union.last().getStr());
+
+        // scores of a only, b weighted by 0: c has score 0
+        RedisSortedSet<ScoreableString> weighted = a.union("testSortedSetWeighted", new ZParams().weightsByDouble(1, 0), b);
+        assertEquals("c", weighted.first().getStr());
+        assertEquals("b", weighted.last().getStr());
+
+        RedisSortedSet<ScoreableString> inter = a.intersect("testSortedSetInter", new ZParams().aggregate(ZParams.Aggregate.MAX), b);
+        assertEquals(1, inter.size());
+        assertTrue(inter.contains(new ScoreableString("b", 2)));
+
+        a.clear();
+        b.clear();
+        union.clear();
+        weighted.clear();
+        inter.clear();
+
+        assertTrue(inter.isEmpty());
+    }
+
+    @Test
+    public void rangeTest() {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        RedisSortedSet<ScoreableString> set = new RedisSortedSet.RedisSortedSetBuilder<ScoreableString>().jedisPool(jedisPool).name("testSortedSetRange").pageSize(7).build();
+
+        set.clear();
+
+        for (int i = 0; i < 100; i++) {
+            set.add(new ScoreableString("s" + i, i));
+        }
+
+        assertEquals(100, set.size());
+        assertEquals("s0", set.first().getStr());
+        assertEquals("s99", set.last().getStr());
+        assertEquals(10, (long) set.rank(new ScoreableString("s10", 10)));
+        assertEquals(null, set.rank(new ScoreableString("x", 10)));
+
+        List<ScoreableString> page = set.range(20, 5);
+        assertEquals(5, page.size());
+        assertEquals("s20", page.get(0).getStr());
+        assertEquals("s24", page.get(4).getStr());
+
+        int i = 0;
+        for (ScoreableString s : set) {
+            assertEquals("s" + i, s.getStr());
+            i++;
+        }
+        assertEquals(100, i);
+
+        assertEquals(10, set.headSet(10).size());
+        assertEquals(11, set.headSet(10, true).size());
+        assertEquals(90, set.tailSet(10).size());
+        assertEquals(89, set.tailSet(10, false).size());
+        assertEquals(10, set.subSet(10, 20).size());
+        assertTrue(set.subSet(10, 20).contains(new ScoreableString("s10", 10)));
+        assertFalse(set.subSet(10, 20).contains(new ScoreableString("s20", 20)));
+
+        i = 10;
+        for (ScoreableString s : set.subSet(10, 30)) {
+            assertEquals("s" + i, s.getStr());
+            i++;
+        }
+        assertEquals(30, i);
+
+        Iterator<ScoreableString> it = set.subSet(10, 30).iterator();
+        while (it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+        assertEquals(80, set.size());
+        assertEquals(0, set.subSet(10, 30).size());
+
+        assertEquals("s0", set.pollFirst().getStr());
+        assertEquals("s99", set.pollLast().getStr());
+        assertEquals(78, set.size());
+
+        set.clear();
+
+        assertEquals(null, set.pollFirst());
+    }
+
+    @Test
+    public void asyncTest() throws Exception {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        RedisSortedSet<ScoreableString> set = new RedisSortedSet.RedisSortedSetBuilder<ScoreableString>().jedisPool(jedisPool).name("testSortedSetAsync").chunkSize(2).build();
+
+        set.async().clear().get();
+
+        ScoreableString a = new ScoreableString("a", 1);
+        ScoreableString b = new ScoreableString("b", 2);
+        ScoreableString c = new ScoreableString("c", 3);
+        ScoreableString d = new ScoreableString("d", 4);
+        ScoreableString e = new ScoreableString("e", 5);
+
+        assertTrue(set.async().add(a).get());
+        assertTrue(set.async().contains(a).get());
+        assertEquals(Long.valueOf(0), set.async().rank(a).get());
+
+        assertTrue(set.async().addAll(Arrays.asList(a, b, c, d, e)).get());
+        assertFalse(set.async().addAll(Arrays.asList(a, b, c)).get());
+        assertEquals(Integer.valueOf(5), set.async().size().get());
+        assertEquals("e", set.last().getStr());
+        assertTrue(set.async().containsAll(Arrays.asList(a, c, e)).get());
+        assertFalse(set.async().containsAll(Arrays.asList(a, new ScoreableString("f", 6))).get());
+        assertTrue(set.async().removeAll(Arrays.asList(a, new ScoreableString("f", 6))).get());
+        assertFalse(set.async().removeAll(Arrays.asList(a)).get());
+        assertTrue(set.async().retainAll(Arrays.asList(b, c)).get());
+        assertFalse(set.async().retainAll(Arrays.asList(b, c)).get());
+        assertEquals(Arrays.asList(b, c), set.range(0, 10));
+        assertEquals(3.0, set.last().score());
+        set.clear();
+    }
+
+    @Test
+    public void writeBehindTest() {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        RedisSortedSet<ScoreableString> set = new RedisSortedSet.RedisSortedSetBuilder<ScoreableString>().jedisPool(jedisPool).name("testSortedSetWriteBehind").writeBehind(true).build();
+        RedisSortedSet<ScoreableString> reader = new RedisSortedSet.RedisSortedSetBuilder<ScoreableString>().jedisPool(jedisPool).name("testSortedSetWriteBehind").build();
+
+        set.clear();
+        for (int i = 0; i < 10; i++) {
+            set.add(new ScoreableString("s" + i, i));
+        }
+        set.remove(new ScoreableString("s3", 3));
+        set.add(new ScoreableString("s10", 10));
+        // held writes are sent with one ZREM and one ZADD
+        set.sync();
+        assertEquals(10, reader.size());
+        assertFalse(reader.contains(new ScoreableString("s3", 3)));
+        assertEquals(new ScoreableString("s10", 10), reader.last());
+
+        set.clear();
+        set.sync();
+        assertTrue(reader.isEmpty());
+    }
 }
@@ -1,6 +1,13 @@
 package org.redis.objects;
 
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
 import org.junit.Test;
 import redis.clients.jedis.JedisPool;
 
@@ -50,4 +57,123 @@ public class RedisStringTest {
 
         assertEquals(0, strRedis.length());
     }
+
+    @Test
+    public void rangeTest() {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        RedisString strRedis = new RedisString.RedisStringBuilder().jedisPool(jedisPool).name("testStringRange").build();
+
+        strRedis.clear();
+
+        // surrogate pairs
+        String str = "a\uD83D\uDE00b\u00E9";
+        strRedis.append(str);
+        assertEquals(str.length(), strRedis.length());
+        assertEquals(8, strRedis.byteLength());
+        for (int i = 0; i < str.length(); i++) {
+            assertEquals(str.charAt(i), strRedis.charAt(i));
+            for (int j = i; j <= str.length(); j++) {
+                assertEquals(str.subSequence(i, j), strRedis.subSequence(i, j));
+            }
+        }
+        try {
+            strRedis.charAt(str.length());
+            assertTrue(false);
+        } catch (IndexOutOfBoundsException ex) {
+        }
+
+        assertTrue(Arrays.equals("a".getBytes(), strRedis.getRange(0, 0)));
+        strRedis.setRange(0, "z");
+        assertEquals("z\uD83D\uDE00b\u00E9", strRedis.toString());
+        assertEquals("z\uD83D\uDE00b\u00E9", strRedis.getAndSet("new"));
+        assertEquals("new", strRedis.toString());
+
+        // large string, read up to the requested chars only
+        strRedis.clear();
+        assertNull(strRedis.getAndSet(""));
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 70000; i++) {
+            sb.append(i % 2 == 0 ? '\u00E9' : 'x');
+        }
+        strRedis.append(sb.toString());
+        assertEquals(70000, strRedis.length());
+        assertEquals(105000, strRedis.byteLength());
+        assertEquals('x', strRedis.charAt(69999));
+        assertEquals(sb.substring(65530, 65540), strRedis.subSequence(65530, 65540));
+
+        strRedis.clear();
+
+        // ASCII string: STRLEN and GETRANGE of the subsequence
+        RedisString ascii = new RedisString.RedisStringBuilder().jedisPool(jedisPool).name("testStringRange").ascii(true).build();
+        str = "hello world";
+        ascii.clear();
+        ascii.append(str);
+        assertEquals(str.length(), ascii.length());
+        for (int i = 0; i < str.length(); i++) {
+            assertEquals(str.charAt(i), ascii.charAt(i));
+            for (int j = i; j <= str.length(); j++) {
+                assertEquals(str.subSequence(i, j), ascii.subSequence(i, j));
+            }
+        }
+        try {
+            ascii.charAt(str.length());
+            assertTrue(false);
+        } catch (IndexOutOfBoundsException ex) {
+        }
+
+        ascii.clear();
+    }
+
+    @Test
+    public void streamTest() throws Exception {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+
+        RedisString strRedis = new RedisString.RedisStringBuilder().jedisPool(jedisPool).name("testStringStream").build();
+
+        byte[] bytes = new byte[100000];
+        new Random(1).nextBytes(bytes);
+
+        try (OutputStream out = strRedis.openOutputStream()) {
+            out.write(bytes, 0, 10);
+            out.write(bytes[10]);
+            out.write(bytes, 11, bytes.length - 11);
+        }
+        assertEquals(bytes.length, strRedis.byteLength());
+
+        // chunk size not dividing the length, then dividing it
+        for (int chunkSize : new int[]{4096, 1000}) {
+            ByteArrayOutputStream res = new ByteArrayOutputStream();
+            try (InputStream in = strRedis.openInputStream(chunkSize)) {
+                byte[] buffer = new byte[1500];
+                for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                    res.write(buffer, 0, n);
+                }
+                assertEquals(-1, in.read());
+            }
+            assertTrue(Arrays.equals(bytes, res.toByteArray()));
+        }
+
+        // overwrite from an offset
+        try (OutputStream out = strRedis.openOutputStream(99998, 2)) {
+            out.write(new byte[]{1, 2, 3});
+        }
+        byte[] end = strRedis.getRange(99997, -1);
+        assertTrue(Arrays.equals(new byte[]{bytes[99997], 1, 2, 3}, end));
+
+        strRedis.clear();
+        strRedis.append(new byte[]{4, 5});
+        try (InputStream in = strRedis.openInputStream()) {
+            assertEquals(4, in.read());
+            assertEquals(5, in.read());
+            assertEquals(-1, in.read());
+        }
+
+        strRedis.clear();
+        try (InputStream in = strRedis.openInputStream()) {
+            assertEquals(-1, in.read());
+        }
+    }
 }
@@ -0,0 +1,251 @@
+package org.redis.objects;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Protocol;
+
+/**
+ *
+ * @author Mathieu MAST
+ */
+public class ShardedPoolTest {
+
+    @Test
+    public void ringTest() {
+
+        Map<String, JedisPool> shards = new LinkedHashMap<>();
+        for (int i = 0; i < 3; i++) {
+            shards.put("shard" + i, new JedisPool("localhost"));
+        }
+        ShardedPool three = new ShardedPool(shards);
+        shards.put("shard3", new JedisPool("localhost"));
+        ShardedPool four = new ShardedPool(shards);
+
+        int keys = 10000;
+        int moved = 0;
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < keys; i++) {
+            String before = three.getShard("key" + i);
+            String after = four.getShard("key" + i);
+            if (!before.equals(after)) {
+                // keys only move to the new shard
+                assertEquals("shard3", after);
+                moved++;
+            }
+            counts.put(after, null == counts.get(after) ? 1 : counts.get(after) + 1);
+        }
+        // about a quarter of the keys move
+        assertTrue(moved > keys / 8 && moved < keys * 3 / 8);
+        for (int count : counts.values()) {
+            assertTrue(count > keys / 8 && count < keys * 3 / 8);
+        }
+
+        // keys with the same hash tag are on the same shard
+        assertSame(four.getPool("name"), four.getPool("{name}:tmp:1"));
+        assertSame(four.getPool("bucket"), four.getPool("name:{bucket}"));
+
+        four.close();
+    }
+
+    @Test
+    public void objectsTest() throws Exception {
+
+        // three shards: databases 0, 1 and 2
+        Map<String, JedisPool> shards = new LinkedHashMap<>();
+        for (int i = 0; i < 3; i++) {
+            shards.put("shard" + i, new JedisPool(new GenericObjectPoolConfig(), "localhost", 6379, Protocol.DEFAULT_TIMEOUT, null, i));
+        }
+        ShardedPool pool = new ShardedPool(shards);
+
+        try (RedisObjects objects = RedisObjects.builder().nodes(pool).build()) {
+            // objects are spread by name
+            Set<JedisPool> used = new HashSet<>();
+            for (int i = 0; i < 20; i++) {
+                RedisSet<String> set = objects.set("testShardedSet" + i);
+                set.clear();
+                set.add("a");
+                used.add(pool.getPool("testShardedSet" + i));
+            }
+            objects.sync();
+            assertEquals(3, used.size());
+            for (int i = 0; i < 20; i++) {
+                String name = "testShardedSet" + i;
+                for (JedisPool shard : shards.values()) {
+                    try (Jedis jedis = shard.getResource()) {
+                        assertEquals(shard == pool.getPool(name), (boolean) jedis.exists(name));
+                    }
+                }
+                objects.set(name).clear();
+            }
+
+            // buckets of a map are spread over the shards, read in parallel
+            RedisMap<Integer, Integer> map = objects.<Integer, Integer>mapBuilder("testShardedMap").buckets(32).build();
+            map.clear();
+            Map<Integer, Integer> expected = new HashMap<>();
+            for (int i = 0; i < 1000; i++) {
+                expected.put(i, -i);
+            }
+            map.putAll(expected);
+            map.sync();
+            assertEquals(1000, map.size());
+            assertEquals(expected, map.getAll(expected.keySet()));
+            assertEquals(expected, new HashMap<>(map));
+            assertEquals(Arrays.asList(0, -1, -999), map.async().values(Arrays.asList(0, 1, 999)).get());
+            for (JedisPool shard : shards.values()) {
+                try (Jedis jedis = shard.getResource()) {
+                    assertFalse(jedis.keys("{testShardedMap:*").isEmpty());
+                }
+            }
+            map.clear();
+            assertTrue(map.isEmpty());
+        }
+    }
+
+    @Test
+    public void setAlgebraTest() throws Exception {
+
+        // two shards: databases 0 and 1
+        Map<String, JedisPool> shards = new LinkedHashMap<>();
+        for (int i = 0; i < 2; i++) {
+            shards.put("shard" + i, new JedisPool(new GenericObjectPoolConfig(), "localhost", 6379, Protocol.DEFAULT_TIMEOUT, null, i));
+        }
+        ShardedPool pool = new ShardedPool(shards);
+
+        try (RedisObjects objects = RedisObjects.builder().nodes(pool).build()) {
+            // names on each shard
+            String name = "testShardedAlgebra";
+            String same = null;
+            String other = null;
+            for (int i = 0; null == same || null == other; i++) {
+                if (pool.getPool(name + i) == pool.getPool(name)) {
+                    same = null == same ? name + i : same;
+                } else {
+                    other = null == other ? name + i : other;
+                }
+            }
+
+            RedisSet<String> set = objects.set(name);
+            set.add("a");
+            RedisSet<String> otherSet = objects.set(other);
+            otherSet.add("a");
+            RedisSortedSet<Scoreable> sortedSet = objects.sortedSet(same);
+            RedisSortedSet<Scoreable> otherSortedSet = objects.sortedSet(other);
+            objects.sync();
+
+            // operands or destination on another shard are rejected
+            try {
+                set.union(same, otherSet);
+                fail();
+            } catch (IllegalArgumentException ex) {
+            }
+            try {
+                set.intersect(other);
+                fail();
+            } catch (IllegalArgumentException ex) {
+            }
+            try {
+                sortedSet.union(same, otherSortedSet);
+                fail();
+            } catch (IllegalArgumentException ex) {
+            }
+            try {
+                sortedSet.intersect(other);
+                fail();
+            } catch (IllegalArgumentException ex) {
+            }
+
+            // keys with a common hash tag are on the same shard
+            RedisSet<String> tagged = objects.set("{" + name + "}:a");
+            tagged.add("a");
+            RedisSet<String> tagged2 = objects.set("{" + name + "}:b");
+            tagged2.add("b");
+            objects.sync();
+            RedisSet<String> union = tagged.union("{" + name + "}:union", tagged2);
+            assertEquals(new HashSet<>(Arrays.asList("a", "b")), new HashSet<>(union));
+
+            set.clear();
+            otherSet.clear();
+            tagged.clear();
+            tagged2.clear();
+            union.clear();
+            objects.sync();
+        }
+    }
+
+    @Test
+    public void nearCacheTest() throws Exception {
+
+        // two factories (as two JVMs) over two shards: databases 0 and 1
+        List<ShardedPool> pools = new ArrayList<>();
+        List<RedisObjects> factories = new ArrayList<>();
+        for (int f = 0; f < 2; f++) {
+            Map<String, JedisPool> shards = new LinkedHashMap<>();
+            for (int i = 0; i < 2; i++) {
+                shards.put("shard" + i, new JedisPool(new GenericObjectPoolConfig(), "localhost", 6379, Protocol.DEFAULT_TIMEOUT, null, i));
+            }
+            pools.add(new ShardedPool(shards));
+            factories.add(RedisObjects.builder().nodes(pools.get(f)).build());
+        }
+        Set<JedisPool> used = new HashSet<>();
+        for (int i = 0; i < 8; i++) {
+            used.add(pools.get(0).getPool("{testShardedNearCache:" + i + "}"));
+        }
+        assertEquals(2, used.size());
+
+        try (RedisObjects readers = factories.get(0); RedisObjects writers = factories.get(1)) {
+            RedisMap<Integer, Integer> map = readers.<Integer, Integer>mapBuilder("testShardedNearCache").buckets(8).nearCacheSize(100).build();
+            RedisMap<Integer, Integer> writer = writers.<Integer, Integer>mapBuilder("testShardedNearCache").buckets(8).publishInvalidations(true).build();
+            writer.clear();
+            for (int i = 0; i < 20; i++) {
+                writer.put(i, i);
+            }
+            writer.sync();
+
+            // values are cached once the listeners of both shards are subscribed
+            long timeout = System.currentTimeMillis() + 5000;
+            while (20 != map.getNearCache().size() && System.currentTimeMillis() < timeout) {
+                for (int i = 0; i < 20; i++) {
+                    assertEquals(i, (int) map.get(i));
+                }
+                Thread.sleep(10);
+            }
+            assertEquals(20, map.getNearCache().size());
+            // standalone shards do not forward messages, so each one has a
+            // subscriber (the databases of one server do forward them)
+            for (JedisPool shard : pools.get(0).getPools()) {
+                assertEquals(1, shard.getNumActive());
+            }
+
+            // invalidations published on the shard of each bucket are received
+            for (int i = 0; i < 20; i++) {
+                writer.put(i, -i);
+            }
+            writer.sync();
+            timeout = System.currentTimeMillis() + 5000;
+            for (int i = 0; i < 20; i++) {
+                while (-i != map.get(i) && System.currentTimeMillis() < timeout) {
+                    Thread.sleep(10);
+                }
+                assertEquals(-i, (int) map.get(i));
+            }
+
+            map.close();
+            writer.clear();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.redis.objects.serializer.compression;
+
+import java.io.IOException;
+import java.util.Arrays;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+import org.junit.Test;
+import org.redis.objects.serializer.Serializer;
+import org.redis.objects.serializer.kryo.KryoSerializer;
+
+/**
+ *
+ * @author Mathieu MAST
+ */
+public class CompressingSerializerTest {
+
+    @Test
+    public void compressionTest() throws Exception {
+
+        KryoSerializer kryo = new KryoSerializer();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("value ").append(i % 10).append(' ');
+        }
+        String large = sb.toString();
+
+        for (Compressor compressor : Arrays.asList(new DeflateCompressor(), new Lz4Compressor())) {
+            Serializer serializer = new CompressingSerializer(kryo, compressor, 64);
+
+            byte[] bytes = serializer.toBytes(large);
+            assertEquals(compressor.id(), bytes[4]);
+            assertTrue(bytes.length < kryo.toBytes(large).length / 4);
+            assertEquals(large, serializer.toObject(bytes));
+
+            // small values are not compressed
+            assertTrue(Arrays.equals(kryo.toBytes("small"), serializer.toBytes("small")));
+            assertEquals("small", serializer.toObject(serializer.toBytes("small")));
+
+            // values written without compression stay readable
+            assertEquals(large, serializer.toObject(kryo.toBytes(large)));
+        }
+
+        // values compressed with another codec are readable
+        byte[] deflated = new CompressingSerializer(kryo, new DeflateCompressor(), 64).toBytes(large);
+        assertEquals(large, new CompressingSerializer(kryo, new Lz4Compressor(), 64).toObject(deflated));
+    }
+
+    @Test
+    public void escapeTest() throws Exception {
+
+        Serializer raw = new Serializer() {
+
+            @Override
+            public byte[] toBytes(Object object) {
+                return (byte[]) object;
+            }
+
+            @Override
+            public Object toObject(byte[] bytes) {
+                return bytes;
+            }
+        };
+        Serializer serializer = new CompressingSerializer(raw, new DeflateCompressor());
+
+        byte[] value = {(byte) 0xC0, (byte) 0xC1, 'Z', 0, (byte) 0xF1, 1, 2};
+        byte[] bytes = serializer.toBytes(value);
+        assertEquals(12, bytes.length);
+        assertTrue(Arrays.equals(value, (byte[]) serializer.toObject(bytes)));
+
+        // values written without this serializer are read verbatim, whatever their first byte
+        for (int b = 0xF0; b <= 0xFF; b++) {
+            byte[] legacy = {(byte) b, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+            assertTrue(Arrays.equals(legacy, (byte[]) serializer.toObject(legacy)));
+            assertTrue(Arrays.equals(legacy, serializer.toBytes(legacy)));
+        }
+
+        byte[] empty = new byte[0];
+        assertTrue(Arrays.equals(empty, (byte[]) serializer.toObject(serializer.toBytes(empty))));
+    }
+
+    @Test
+    public void truncatedTest() throws Exception {
+
+        byte[] value = new byte[1000];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = (byte) (i % 7);
+        }
+        for (Compressor compressor : Arrays.asList(new DeflateCompressor(), new Lz4Compressor())) {
+            byte[] compressed = compressor.compress(value);
+            assertTrue(Arrays.equals(value, compressor.decompress(compressed, 0, compressed.length, value.length)));
+
+            for (int[] lengths : new int[][]{{compressed.length / 2, value.length}, {compressed.length, value.length + 1}, {compressed.length, value.length - 1}}) {
+                try {
+                    compressor.decompress(compressed, 0, lengths[0], lengths[1]);
+                    fail();
+                } catch (IOException ex) {
+                    // truncated or corrupt
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.redis.objects.serializer.kryo;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+/**
+ *
+ * @author Mathieu MAST
+ */
+public class KryoSerializerTest {
+
+    public static class Dto {
+
+        private long id;
+
+        private String name;
+
+        public Dto() {
+        }
+
+        public Dto(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    @Test
+    public void registryTest() throws Exception {
+
+        KryoSerializer serializer = new KryoSerializer();
+        KryoSerializer registered = new KryoSerializer(new KryoRegistry().register(Dto.class, 20));
+
+        Dto dto = new Dto(1, "a");
+        byte[] bytes = registered.toBytes(dto);
+        assertTrue(bytes.length < serializer.toBytes(dto).length);
+
+        Dto res = (Dto) registered.toObject(bytes);
+        assertEquals(1, res.id);
+        assertEquals("a", res.name);
+    }
+
+    @Test
+    public void redisRegistryTest() throws Exception {
+
+        JedisPool jedisPool = new JedisPool("localhost");
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.del("testKryoRegistry:ids", "testKryoRegistry:classes");
+        }
+
+        // two serializers sharing the registry, as in two applications
+        KryoSerializer writer = new KryoSerializer(new RedisKryoRegistry(jedisPool, "testKryoRegistry"));
+        KryoSerializer reader = new KryoSerializer(new RedisKryoRegistry(jedisPool, "testKryoRegistry"));
+
+        byte[] bytes = writer.toBytes(new Dto(2, "b"));
+        assertTrue(bytes.length < new KryoSerializer().toBytes(new Dto(2, "b")).length);
+
+        Dto res = (Dto) reader.toObject(bytes);
+        assertEquals(2, res.id);
+        assertEquals("b", res.name);
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            assertEquals(String.valueOf(RedisKryoRegistry.FIRST_REDIS_ID), jedis.hget("testKryoRegistry:ids", Dto.class.getName()));
+            jedis.del("testKryoRegistry:ids", "testKryoRegistry:classes");
+        }
+    }
+}